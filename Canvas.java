@@ -1,16 +1,38 @@
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.*;
 import java.awt.geom.*;
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 import java.util.*;
 import java.util.List;
 
 /**
  * Canvas es una clase que permite dibujar figuras simples en una ventana.
  * 
+ * Además del Canvas compartido (getCanvas), se pueden crear Canvas
+ * independientes, con ventana propia o solo en memoria (createOffscreen),
+ * y pasarlos como Renderer a SilkRoad o Game; así varias simulaciones
+ * corren en paralelo sin dibujar unas encima de otras.
+ * 
+ * Hilos: cada Canvas se protege con su propio monitor, así que todos sus
+ * métodos públicos se pueden llamar desde cualquier hilo. Un lote abierto
+ * con beginBatch pertenece al hilo que lo abrió: otro hilo que llame a
+ * beginBatch espera a que se cierre, y cerrarlo desde otro hilo lanza
+ * IllegalStateException. Un Canvas con ventana se pinta en su propio hilo
+ * de dibujo; uno en memoria se pinta en el hilo que llama a snapshot.
+ * Cada cuadro se pinta en una imagen de trabajo y solo las áreas que
+ * cambiaron se pasan a la imagen publicada, que tiene su propio candado:
+ * la ventana y snapshot copian la imagen publicada sin tomar el monitor
+ * del Canvas, así la simulación no espera por esas copias.
+ * 
  * @author Michael Kolling and David J. Barnes 
  * @version 2016.02.29
  */
-public class Canvas
+public class Canvas implements Renderer
 {
     // Nota: La implementación podría variar dependiendo de la versión que tengas
     private static Canvas canvasSingleton;
@@ -20,6 +42,7 @@ public class Canvas
         if(canvasSingleton == null) {
             canvasSingleton = new Canvas("BlueJ Shapes Demo", 700, 700, 
                                          Color.white);
+            canvasSingleton.registerStats("default");
         }
         canvasSingleton.setVisible(true);
         return canvasSingleton;
@@ -31,80 +54,782 @@ public class Canvas
     private CanvasPane canvas;
     private Graphics2D graphic;
     private Color backgroundColor;
-    private Image canvasImage;
-    private java.util.List<Object> objects;
+    private BufferedImage canvasImage;      // imagen de trabajo, protegida por el monitor
+    private BufferedImage publishedImage;   // último cuadro terminado, protegido por publishLock
+    private Graphics2D publishedGraphic;
+    private final Object publishLock = new Object();
+    private BufferedImage roadImage;
+    private Graphics2D roadGraphic;
+    private boolean roadImageValid;
     private HashMap<Object, ShapeDescription> shapes;
+    private SpatialGrid<ShapeDescription> grid;
+    private LinkedHashMap<Object, ShapeDescription> hud;
+    private LinkedHashSet<ShapeDescription> animations;
+    private LinkedHashSet<Road> roads;
+    private long sequence;
+    private java.util.List<java.awt.Rectangle> dirtyRegions;
+    private int width;
+    private int height;
+    private double viewX;
+    private double viewY;
+    private double zoom;
+    private DensityMap densityMap;
+    private int batchDepth;
+    private Thread batchOwner;
+    private long frameNanos;
+    private Thread renderThread;
+    private FrameCapture capture;
+    private Thread captureThread;
+    private RenderStats stats;
+    private String operation;
+    private HashSet<String> frameOperations;
+    private int frameShapes;
+    private int pendingChanges;     // áreas marcadas desde el último cuadro, antes de fusionarlas
+
+    /** Cuadros por segundo usados si no se configura otro valor. */
+    public static final int DEFAULT_FRAME_RATE = 60;
+
+    // Sobre este número de regiones sucias se pinta su unión
+    private static final int MAX_DIRTY_REGIONS = 32;
+
+    // Operación a la que se cargan los cambios antes de la primera setOperation
+    private static final String NO_OPERATION = "(sin operación)";
+
+    // Duración de una animación por cada tramo del camino, y máximo total
+    private static final long ANIMATION_STEP_NANOS = 60000000L;
+    private static final long MAX_ANIMATION_NANOS = 1500000000L;
+
+    // Lado de las celdas del índice espacial, en pixeles del mundo
+    private static final int GRID_CELL_SIZE = 256;
+
+    // Límites del acercamiento
+    private static final double MIN_ZOOM = 0.001;
+    private static final double MAX_ZOOM = 16.0;
+
+    // Bajo este acercamiento (un cuadro de la carretera mide menos de 12
+    // pixeles) se dibuja el mapa de calor en vez de cada tienda y robot
+    private static final double LOD_ZOOM = 0.25;
+
+    // Colores del mapa de calor, de carretera sin monedas a la más rica de la vista
+    private static final Color[] HEAT_COLORS = new Color[16];
+
+    static {
+        Color cold = Palette.ARENA.getColor();
+        Color hot = Palette.LADRILLO.getColor();
+        for(int i = 0; i < HEAT_COLORS.length; i++) {
+            float t = i / (float)(HEAT_COLORS.length - 1);
+            HEAT_COLORS[i] = new Color(Math.round(cold.getRed() + t * (hot.getRed() - cold.getRed())),
+                                       Math.round(cold.getGreen() + t * (hot.getGreen() - cold.getGreen())),
+                                       Math.round(cold.getBlue() + t * (hot.getBlue() - cold.getBlue())));
+        }
+    }
+
+    // Orden de dibujo: primero por capa, dentro de la capa el último registrado encima
+    private static final Comparator<ShapeDescription> DRAW_ORDER = new Comparator<ShapeDescription>()
+    {
+        public int compare(ShapeDescription a, ShapeDescription b)
+        {
+            int byLayer = a.getLayer().compareTo(b.getLayer());
+            return byLayer != 0 ? byLayer : Long.compare(a.getSequence(), b.getSequence());
+        }
+    };
     
     /**
-     * Crea un Canvas.
+     * Crea un Canvas en memoria, sin ventana ni hilo de dibujo. Las figuras
+     * se pintan cuando se pide la imagen con snapshot.
+     * @param width    ancho de la imagen
+     * @param height   alto de la imagen
+     * @param bgColour color de fondo
+     * @return el nuevo Canvas
+     */
+    public static Canvas createOffscreen(int width, int height, Color bgColour)
+    {
+        if(width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("El tamaño debe ser mayor que 0");
+        }
+        Canvas offscreen = new Canvas(bgColour);
+        offscreen.createImages(width, height);
+        return offscreen;
+    }
+
+    /**
+     * Crea un Canvas con su propia ventana.
      * @param title    título de la ventana
      * @param width    ancho de la ventana
      * @param height   alto de la ventana
      * @param bgColour color de fondo de la ventana
      */
-    private Canvas(String title, int width, int height, Color bgColour)
+    public Canvas(String title, int width, int height, Color bgColour)
     {
+        this(bgColour);
         frame = new JFrame();
         canvas = new CanvasPane();
         frame.setContentPane(canvas);
         frame.setTitle(title);
         canvas.setPreferredSize(new Dimension(width, height));
-        backgroundColor = bgColour;
         frame.pack();
-        objects = new ArrayList<Object>();
+        renderThread = new Thread(new RenderScheduler(), "Canvas-render");
+        renderThread.setDaemon(true);
+        renderThread.start();
+    }
+
+    /**
+     * Inicializa el estado común a los Canvas con y sin ventana.
+     */
+    private Canvas(Color bgColour)
+    {
+        backgroundColor = bgColour;
         shapes = new HashMap<Object, ShapeDescription>();
+        grid = new SpatialGrid<ShapeDescription>(GRID_CELL_SIZE);
+        hud = new LinkedHashMap<Object, ShapeDescription>();
+        animations = new LinkedHashSet<ShapeDescription>();
+        roads = new LinkedHashSet<Road>();
+        stats = new RenderStats();
+        operation = NO_OPERATION;
+        frameOperations = new HashSet<String>();
+        zoom = 1.0;
+        dirtyRegions = new ArrayList<java.awt.Rectangle>();
+        setFrameRate(DEFAULT_FRAME_RATE);
+    }
+
+    /**
+     * Cambia la frecuencia con la que el hilo de dibujo actualiza la ventana.
+     * Todos los cambios hechos entre dos cuadros se pintan juntos.
+     * @param framesPerSecond  cuadros por segundo, debe ser mayor que 0
+     */
+    public synchronized void setFrameRate(int framesPerSecond)
+    {
+        if(framesPerSecond <= 0) {
+            throw new IllegalArgumentException("La frecuencia debe ser mayor que 0");
+        }
+        frameNanos = 1000000000L / framesPerSecond;
     }
 
     /**
      * Hace la ventana visible o invisible.
      * @param visible  true para hacer visible, false para invisible.
      */
-    public void setVisible(boolean visible)
+    public synchronized void setVisible(boolean visible)
     {
+        if(frame == null) {
+            return; // un Canvas en memoria no tiene ventana
+        }
         if(graphic == null) {
-            // primera vez: instancia la imagen off-screen y llena con
-            // color de fondo
+            // primera vez: instancia la imagen off-screen del tamaño de la ventana
             Dimension size = canvas.getSize();
-            canvasImage = canvas.createImage(size.width, size.height);
-            graphic = (Graphics2D)canvasImage.getGraphics();
-            graphic.setColor(backgroundColor);
-            graphic.fillRect(0, 0, size.width, size.height);
-            graphic.setColor(Color.black);
+            createImages(size.width, size.height);
         }
         frame.setVisible(visible);
     }
 
     /**
-     * Dibuja la figura dada en el canvas.
+     * Crea la imagen donde se pinta, llena con el color de fondo, y la
+     * imagen aparte de la carretera.
+     */
+    private void createImages(int newWidth, int newHeight)
+    {
+        width = newWidth;
+        height = newHeight;
+        canvasImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        graphic = (Graphics2D)canvasImage.getGraphics();
+        graphic.setColor(backgroundColor);
+        graphic.fillRect(0, 0, width, height);
+        graphic.setColor(Color.black);
+        synchronized(publishLock) {
+            publishedImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            publishedGraphic = publishedImage.createGraphics();
+            publishedGraphic.drawImage(canvasImage, 0, 0, null);
+        }
+        // la capa de carretera se pinta aparte y solo cuando cambia
+        roadImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        roadGraphic = roadImage.createGraphics();
+        invalidateAll();
+    }
+
+    /**
+     * Pinta los cambios pendientes y devuelve una copia de la imagen. Si el
+     * hilo que llama tiene un lote abierto, sus cambios aún no aparecen.
+     * La copia sale de la imagen publicada y no toma el monitor del Canvas.
+     * @return una imagen nueva con el contenido actual del Canvas
+     */
+    public BufferedImage snapshot()
+    {
+        renderFrame();
+        synchronized(publishLock) {
+            if(publishedImage == null) {
+                return new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            }
+            BufferedImage copy = new BufferedImage(publishedImage.getWidth(), publishedImage.getHeight(),
+                                                   BufferedImage.TYPE_INT_RGB);
+            Graphics2D copyGraphic = copy.createGraphics();
+            copyGraphic.drawImage(publishedImage, 0, 0, null);
+            copyGraphic.dispose();
+            return copy;
+        }
+    }
+
+    /**
+     * @return las estadísticas del hilo de dibujo de este Canvas
+     */
+    public RenderStats getStats()
+    {
+        return stats;
+    }
+
+    /**
+     * Publica las estadísticas de este Canvas por JMX con el nombre
+     * SilkRoad:type=Canvas,name=<name>. Si el nombre ya está tomado (por
+     * ejemplo por otra ejecución en la misma máquina virtual) o JMX falla,
+     * solo se avisa: el Canvas sigue dibujando sin publicar.
+     * @param  name  nombre que distingue este Canvas de los demás
+     * @return true si las estadísticas quedaron publicadas
+     */
+    public boolean registerStats(String name)
+    {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName("SilkRoad:type=Canvas,name=" + ObjectName.quote(name));
+            if(server.isRegistered(objectName)) {
+                System.out.println("Ya hay estadísticas publicadas como " + objectName);
+                return false;
+            }
+            server.registerMBean(stats, objectName);
+            return true;
+        }
+        catch(JMException e) {
+            System.out.println("No se pudieron publicar las estadísticas: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Indica qué operación de la simulación causa los cambios siguientes,
+     * para cargarle en las estadísticas el costo de pintarlos. Dentro de un
+     * lote se mantiene la operación que había al abrirlo (por ejemplo los
+     * moveRobot que hace moveRobots se cargan a moveRobots).
+     * @param  name  nombre de la operación, por ejemplo "placeStore"
+     */
+    public synchronized void setOperation(String name)
+    {
+        if(batchDepth == 0) {
+            operation = name;
+        }
+    }
+
+    /**
+     * Empieza a capturar un cuadro cada cierto tiempo y entregarlo a la
+     * captura dada, que lo escribe en disco en su propio hilo. Las capturas
+     * se toman en un hilo aparte, así la simulación nunca espera por ellas.
+     * Si ya había una captura en curso, se detiene primero.
+     * @param  sink            dónde se entregan los cuadros
+     * @param  intervalMillis  milisegundos entre cuadros, debe ser mayor que 0
+     */
+    public void startCapture(FrameCapture sink, int intervalMillis)
+    {
+        if(intervalMillis <= 0) {
+            throw new IllegalArgumentException("El intervalo debe ser mayor que 0");
+        }
+        stopCapture();
+        synchronized(this) {
+            capture = sink;
+            captureThread = new Thread(new CaptureScheduler(sink, intervalMillis), "Canvas-capture");
+            captureThread.setDaemon(true);
+            captureThread.start();
+        }
+    }
+
+    /**
+     * Detiene la captura en curso, si hay una, y cierra su FrameCapture
+     * después de escribir los cuadros pendientes.
+     */
+    public void stopCapture()
+    {
+        Thread stopping;
+        FrameCapture sink;
+        synchronized(this) {
+            stopping = captureThread;
+            sink = capture;
+            captureThread = null;
+            capture = null;
+        }
+        if(stopping == null) {
+            return;
+        }
+        // fuera del monitor: el hilo de captura lo necesita para terminar su cuadro
+        stopping.interrupt();
+        try {
+            stopping.join();
+        }
+        catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        sink.close();
+    }
+
+    /**
+     * Dibuja la figura dada en la capa de figuras sueltas.
      * @param  referenceObject  un objeto para definir identidad para esta figura
      * @param  color            el color de la figura
      * @param  shape            un objeto que define la figura a dibujar
      */
     public void draw(Object referenceObject, String color, Shape shape)
     {
-        objects.remove(referenceObject);   // remueve si ya estaba
-        objects.add(referenceObject);      // añade al final
-        shapes.put(referenceObject, new ShapeDescription(shape, color));
-        redraw();
+        draw(referenceObject, Layer.SHAPES, Palette.of(color), shape);
     }
 
     /**
-     * Borra la figura dada del canvas.
+     * Dibuja la figura dada encima de las demás figuras de su capa. El cambio
+     * se pinta en el siguiente cuadro del hilo de dibujo; este método no
+     * bloquea. Las coordenadas son del mundo (se transforman según la vista),
+     * salvo en la capa HUD que se dibuja fija en la ventana.
+     * @param  referenceObject  un objeto para definir identidad para esta figura
+     * @param  layer            la capa donde se dibuja la figura
+     * @param  color            el color de la figura, ya resuelto en la paleta
+     * @param  shape            un objeto que define la figura a dibujar
+     */
+    public synchronized void draw(Object referenceObject, Layer layer, Palette color, Shape shape)
+    {
+        register(referenceObject, new ShapeDescription(shape, color, layer));
+    }
+
+    /**
+     * Dibuja un sprite como una sola imagen encima de las demás figuras de
+     * su capa. La imagen del sprite se rasteriza una vez y se reutiliza.
+     * @param  referenceObject  un objeto para definir identidad para este sprite
+     * @param  layer            la capa donde se dibuja
+     * @param  sprite           el sprite a dibujar
+     * @param  x                posición horizontal del origen del sprite
+     * @param  y                posición vertical del origen del sprite
+     */
+    public synchronized void drawSprite(Object referenceObject, Layer layer, Sprite sprite, 
+                                        int x, int y)
+    {
+        register(referenceObject, new ShapeDescription(sprite, x, y, layer));
+    }
+
+    /**
+     * Dibuja un sprite que recorre el camino dado, de su primer a su último
+     * punto. El recorrido lo avanza el hilo de dibujo en cada cuadro; este
+     * método no bloquea, así varias animaciones avanzan a la vez. Dibujar o
+     * borrar el mismo objeto detiene la animación.
+     * @param  referenceObject  un objeto para definir identidad para este sprite
+     * @param  layer            la capa donde se dibuja
+     * @param  sprite           el sprite a dibujar
+     * @param  xs               posiciones horizontales del origen en cada punto del camino
+     * @param  ys               posiciones verticales del origen en cada punto del camino
+     */
+    public synchronized void animateSprite(Object referenceObject, Layer layer, Sprite sprite,
+                                           int[] xs, int[] ys)
+    {
+        if(xs.length == 0 || xs.length != ys.length) {
+            throw new IllegalArgumentException("El camino necesita la misma cantidad de x que de y");
+        }
+        ShapeDescription description = new ShapeDescription(sprite, xs[0], ys[0], layer);
+        register(referenceObject, description);
+        if(xs.length > 1) {
+            long stepNanos = Math.min(ANIMATION_STEP_NANOS, MAX_ANIMATION_NANOS / (xs.length - 1));
+            description.animate(xs, ys, System.nanoTime(), stepNanos);
+            animations.add(description);
+        }
+    }
+
+    /**
+     * Avanza todas las animaciones en curso según el tiempo transcurrido y
+     * olvida las que terminaron.
+     */
+    private void advanceAnimations()
+    {
+        long now = System.nanoTime();
+        Iterator<ShapeDescription> running = animations.iterator();
+        while(running.hasNext()) {
+            ShapeDescription description = running.next();
+            boolean indexed = description.getLayer() != Layer.HUD;
+            if(indexed) {
+                grid.remove(description, description.getBounds());
+            }
+            changed(description);
+            boolean finished = description.advance(now);
+            if(indexed) {
+                grid.insert(description, description.getBounds());
+            }
+            changed(description);
+            if(finished) {
+                running.remove();
+            }
+        }
+    }
+
+    /**
+     * Registra la descripción dada al final de su capa, reemplazando la
+     * anterior del mismo objeto si existía.
+     */
+    private void register(Object referenceObject, ShapeDescription description)
+    {
+        description.setSequence(sequence++);
+        ShapeDescription previous = shapes.put(referenceObject, description);
+        if(previous != null) {
+            unindex(referenceObject, previous);
+        }
+        if(description.getLayer() == Layer.HUD) {
+            hud.put(referenceObject, description);
+        }
+        else {
+            grid.insert(description, description.getBounds());
+        }
+        changed(description);
+    }
+
+    /**
+     * Quita la descripción dada de su índice y marca su área para repintar.
+     */
+    private void unindex(Object referenceObject, ShapeDescription description)
+    {
+        animations.remove(description);
+        if(description.getLayer() == Layer.HUD) {
+            hud.remove(referenceObject);
+        }
+        else {
+            grid.remove(description, description.getBounds());
+        }
+        changed(description);
+    }
+
+    /**
+     * Dibuja la carretera dada debajo de todo lo demás. La carretera no se
+     * guarda figura por figura: en cada cuadro pinta solo lo que cae en la
+     * vista (ver Road.paint), así su largo no cuesta memoria en el Canvas.
+     * Se borra con erase.
+     * @param  road  la carretera
+     */
+    public synchronized void drawRoad(Road road)
+    {
+        if(roads.add(road)) {
+            invalidateAll();
+        }
+    }
+
+    /**
+     * Borra la figura dada del canvas. El cambio se pinta en el siguiente
+     * cuadro del hilo de dibujo.
      * @param  referenceObject  el objeto forma que será borrado 
      */
-    public void erase(Object referenceObject)
+    public synchronized void erase(Object referenceObject)
     {
-        objects.remove(referenceObject);   
-        shapes.remove(referenceObject);
-        redraw();
+        if(roads.remove(referenceObject)) {
+            invalidateAll();
+            return;
+        }
+        ShapeDescription previous = shapes.remove(referenceObject);
+        if(previous != null) {
+            unindex(referenceObject, previous);
+        }
+    }
+
+    /**
+     * Inicia un lote de cambios. Mientras haya un lote abierto el hilo de
+     * dibujo no pinta, así una escena a medio construir nunca se muestra.
+     * Cada beginBatch debe cerrarse con commitBatch (idealmente en un finally).
+     */
+    public synchronized void beginBatch()
+    {
+        Thread current = Thread.currentThread();
+        while(batchDepth > 0 && batchOwner != current) {
+            try {
+                wait(); // el lote de otro hilo debe cerrarse primero
+            }
+            catch(InterruptedException e) {
+                current.interrupt();
+                throw new IllegalStateException("Interrumpido esperando el lote de otro hilo");
+            }
+        }
+        batchOwner = current;
+        batchDepth++;
+    }
+
+    /**
+     * Cierra un lote. Al cerrar el más externo, todas las regiones sucias
+     * acumuladas se pintan en el siguiente cuadro.
+     */
+    public synchronized void commitBatch()
+    {
+        if(batchDepth == 0) {
+            return;
+        }
+        if(batchOwner != Thread.currentThread()) {
+            throw new IllegalStateException("El lote fue abierto por otro hilo: " + batchOwner.getName());
+        }
+        batchDepth--;
+        if(batchDepth == 0) {
+            batchOwner = null;
+            notifyAll();
+        }
+    }
+
+    /**
+     * Registra que la figura dada apareció o desapareció: su área debe
+     * repintarse y, si es parte de la carretera, la imagen de la carretera
+     * debe volver a generarse.
+     * @param  description  la figura que cambió
+     */
+    private void changed(ShapeDescription description)
+    {
+        if(description.getLayer() == Layer.HUD) {
+            markDirty(description.getBounds());
+            return;
+        }
+        if(isLevelOfDetail() && description.getLayer() != Layer.SHAPES) {
+            return; // el mapa de calor la representa; se repinta cuando el mapa cambie
+        }
+        java.awt.Rectangle area = toScreen(description.getBounds());
+        if(!area.intersects(0, 0, width, height)) {
+            return; // fuera de la vista: no hay nada que repintar
+        }
+        if(description.getLayer() == Layer.ROAD) {
+            roadImageValid = false;
+        }
+        markDirty(area);
+    }
+
+    /**
+     * Registra un área que debe repintarse en el siguiente cuadro.
+     * @param  area  el área en pixeles de la ventana
+     */
+    private void markDirty(java.awt.Rectangle area)
+    {
+        area = area.intersection(new java.awt.Rectangle(0, 0, width, height));
+        if(area.isEmpty()) {
+            return;
+        }
+        frameOperations.add(operation);
+        pendingChanges++;
+        for(java.awt.Rectangle region : dirtyRegions) {
+            if(region.contains(area)) {
+                return;
+            }
+        }
+        dirtyRegions.add(area);
+        if(dirtyRegions.size() > MAX_DIRTY_REGIONS) {
+            java.awt.Rectangle union = new java.awt.Rectangle(area);
+            for(java.awt.Rectangle region : dirtyRegions) {
+                union.add(region);
+            }
+            dirtyRegions.clear();
+            dirtyRegions.add(union);
+        }
     }
 
     /**
-     * Espera un número específico de milisegundos antes de finalizar.
+     * Marca toda la ventana para repintar, incluyendo la imagen de la
+     * carretera. Se usa cuando cambia la vista.
+     */
+    private void invalidateAll()
+    {
+        roadImageValid = false;
+        dirtyRegions.clear();
+        dirtyRegions.add(new java.awt.Rectangle(0, 0, width, height));
+        frameOperations.add(operation);
+        pendingChanges++;
+    }
+
+    /**
+     * Cambia la vista: qué punto del mundo queda en la esquina superior
+     * izquierda de la ventana y con cuánto acercamiento.
+     * @param  x        coordenada horizontal del mundo en la esquina
+     * @param  y        coordenada vertical del mundo en la esquina
+     * @param  newZoom  pixeles de la ventana por pixel del mundo (1 = tamaño real)
+     */
+    public synchronized void setViewport(double x, double y, double newZoom)
+    {
+        viewX = x;
+        viewY = y;
+        zoom = Math.max(MIN_ZOOM, Math.min(MAX_ZOOM, newZoom));
+        invalidateAll();
+    }
+
+    /**
+     * Desplaza la vista.
+     * @param  dx  pixeles de la ventana a desplazar horizontalmente
+     * @param  dy  pixeles de la ventana a desplazar verticalmente
+     */
+    public synchronized void pan(int dx, int dy)
+    {
+        setViewport(viewX - dx / zoom, viewY - dy / zoom, zoom);
+    }
+
+    /**
+     * Acerca o aleja la vista manteniendo fijo el punto dado de la ventana.
+     * @param  factor   mayor que 1 acerca, menor que 1 aleja
+     * @param  screenX  coordenada horizontal del punto fijo en la ventana
+     * @param  screenY  coordenada vertical del punto fijo en la ventana
+     */
+    public synchronized void zoomAt(double factor, int screenX, int screenY)
+    {
+        double worldX = viewX + screenX / zoom;
+        double worldY = viewY + screenY / zoom;
+        double newZoom = Math.max(MIN_ZOOM, Math.min(MAX_ZOOM, zoom * factor));
+        setViewport(worldX - screenX / newZoom, worldY - screenY / newZoom, newZoom);
+    }
+
+    /**
+     * Centra la vista en el punto dado del mundo sin cambiar el acercamiento.
+     * @param  worldX  coordenada horizontal del mundo
+     * @param  worldY  coordenada vertical del mundo
+     */
+    public synchronized void centerOn(int worldX, int worldY)
+    {
+        setViewport(worldX - width / (2 * zoom), worldY - height / (2 * zoom), zoom);
+    }
+
+    /**
+     * Indica el mapa de densidad que se dibuja en lugar de la carretera, las
+     * tiendas y los robots cuando la vista está muy alejada. Así el costo de
+     * dibujar depende de los pixeles de la ventana y no de cuántas entidades
+     * haya.
+     * @param  map  el mapa, o null para dibujar siempre cada figura
+     */
+    public synchronized void setDensityMap(DensityMap map)
+    {
+        densityMap = map;
+        invalidateAll();
+    }
+
+    /**
+     * @return true si la vista está tan alejada que se usa el mapa de calor
+     */
+    private boolean isLevelOfDetail()
+    {
+        return densityMap != null && zoom < LOD_ZOOM;
+    }
+
+    /**
+     * Marca para repintar las baldosas del mapa de densidad que cambiaron.
+     */
+    private void collectDensityChanges()
+    {
+        java.util.List<java.awt.Rectangle> changedTiles = new ArrayList<java.awt.Rectangle>();
+        densityMap.drainChanged(changedTiles);
+        if(!isLevelOfDetail()) {
+            return;
+        }
+        for(java.awt.Rectangle tile : changedTiles) {
+            java.awt.Rectangle area = toScreen(tile);
+            if(area.intersects(0, 0, width, height)) {
+                roadImageValid = false;
+                markDirty(area);
+            }
+        }
+    }
+
+    /**
+     * Pinta el mapa de calor del área dada: cada baldosa con monedas se
+     * colorea según ellas (relativas a la baldosa más rica de la vista) y
+     * cada baldosa con robots lleva un punto cuyo tamaño crece con ellos.
+     * @param  target  dónde se pinta, ya transformado a coordenadas del mundo
+     * @param  area    el área del mundo a pintar
+     */
+    private void fillHeatmap(Graphics2D target, java.awt.Rectangle area)
+    {
+        java.util.List<int[]> tiles = new ArrayList<int[]>();
+        densityMap.collect(area, tiles);
+        int maxCoins = 1;
+        int maxRobots = 1;
+        for(int[] tile : tiles) {
+            maxCoins = Math.max(maxCoins, tile[2]);
+            maxRobots = Math.max(maxRobots, tile[3]);
+        }
+        int size = DensityMap.TILE_SIZE;
+        frameShapes += tiles.size();
+        for(int[] tile : tiles) {
+            if(tile[2] > 0) {
+                long heat = (long)tile[2] * (HEAT_COLORS.length - 1) / maxCoins;
+                target.setColor(HEAT_COLORS[(int)heat]);
+                target.fillRect(tile[0], tile[1], size, size);
+            }
+        }
+        target.setColor(Palette.AZULMETAL.getColor());
+        for(int[] tile : tiles) {
+            if(tile[3] > 0) {
+                int dot = (int)(size * Math.sqrt(tile[3] / (double)maxRobots) / 2);
+                target.fillOval(tile[0] + (size - dot) / 2, tile[1] + (size - dot) / 2, dot, dot);
+            }
+        }
+    }
+
+    /**
+     * @return el acercamiento actual (1 = tamaño real)
+     */
+    public synchronized double getZoom()
+    {
+        return zoom;
+    }
+
+    /**
+     * Convierte un rectángulo del mundo a pixeles de la ventana.
+     */
+    private java.awt.Rectangle toScreen(java.awt.Rectangle world)
+    {
+        int x0 = (int)Math.floor((world.x - viewX) * zoom);
+        int y0 = (int)Math.floor((world.y - viewY) * zoom);
+        int x1 = (int)Math.ceil((world.x + world.width - viewX) * zoom);
+        int y1 = (int)Math.ceil((world.y + world.height - viewY) * zoom);
+        return new java.awt.Rectangle(x0 - 1, y0 - 1, x1 - x0 + 2, y1 - y0 + 2);
+    }
+
+    /**
+     * Convierte un rectángulo de la ventana a coordenadas del mundo.
+     */
+    private java.awt.Rectangle toWorld(java.awt.Rectangle screen)
+    {
+        int x0 = (int)Math.floor(viewX + screen.x / zoom);
+        int y0 = (int)Math.floor(viewY + screen.y / zoom);
+        int x1 = (int)Math.ceil(viewX + (screen.x + screen.width) / zoom);
+        int y1 = (int)Math.ceil(viewY + (screen.y + screen.height) / zoom);
+        return new java.awt.Rectangle(x0 - 1, y0 - 1, x1 - x0 + 2, y1 - y0 + 2);
+    }
+
+    /**
+     * Transformación de coordenadas del mundo a la ventana.
+     */
+    private AffineTransform worldTransform()
+    {
+        AffineTransform transform = AffineTransform.getScaleInstance(zoom, zoom);
+        transform.translate(-viewX, -viewY);
+        return transform;
+    }
+
+    /**
+     * Busca en el índice espacial las figuras que tocan el área del mundo.
+     * @param  area  el área en coordenadas del mundo
+     * @param  road  true para solo la carretera, false para todo lo demás
+     * @return las figuras en orden de dibujo
+     */
+    private java.util.List<ShapeDescription> visibleShapes(java.awt.Rectangle area, boolean road)
+    {
+        HashSet<ShapeDescription> found = new HashSet<ShapeDescription>();
+        grid.query(area, found);
+        ArrayList<ShapeDescription> visible = new ArrayList<ShapeDescription>(found.size());
+        boolean heatmap = isLevelOfDetail();
+        for(ShapeDescription description : found) {
+            Layer layer = description.getLayer();
+            if((layer == Layer.ROAD) == road && !(heatmap && layer != Layer.SHAPES)
+               && description.getBounds().intersects(area)) {
+                visible.add(description);
+            }
+        }
+        Collections.sort(visible, DRAW_ORDER);
+        return visible;
+    }
+
+    /**
+     * Espera un número específico de milisegundos antes de finalizar. Un
+     * Canvas en memoria no espera, porque nadie está mirando.
      * @param  milliseconds  el número de millisegundos a esperar
      */
     public void wait(int milliseconds)
     {
+        if(frame == null) {
+            return;
+        }
         try
         {
             Thread.sleep(milliseconds);
@@ -116,28 +841,149 @@ public class Canvas
     }
 
     /**
-     * Redibuja todas las figuras actualmente en el Canvas.
+     * El Canvas siempre dibuja en pantalla.
+     * @return false
      */
-    private void redraw()
+    public boolean isHeadless()
     {
-        erase();
-        for(Object shape : objects) 
-        {
-            shapes.get(shape).draw(graphic);
+        return false;
+    }
+
+    /**
+     * Pinta un cuadro si hubo cambios desde el anterior. Lo llama el hilo
+     * de dibujo.
+     */
+    private void renderFrame()
+    {
+        java.awt.Rectangle[] regions;
+        synchronized(this) {
+            if(batchDepth == 0 && !animations.isEmpty()) {
+                advanceAnimations();
+            }
+            if(batchDepth == 0 && densityMap != null) {
+                collectDensityChanges();
+            }
+            if(batchDepth > 0 || dirtyRegions.isEmpty() || graphic == null) {
+                return;
+            }
+            long start = System.nanoTime();
+            // trabajo en cola: cambios marcados (incluidos los que se
+            // acumularon durante un lote) más animaciones aún en curso
+            int queueDepth = pendingChanges + animations.size();
+            pendingChanges = 0;
+            regions = dirtyRegions.toArray(new java.awt.Rectangle[dirtyRegions.size()]);
+            dirtyRegions.clear();
+            frameShapes = 0;
+            for(java.awt.Rectangle region : regions) {
+                redraw(region);
+            }
+            publish(regions);
+            stats.recordFrame(regions.length, frameShapes, System.nanoTime() - start,
+                              queueDepth, frameOperations);
+            frameOperations.clear();
+        }
+        if(canvas != null) {
+            for(java.awt.Rectangle region : regions) {
+                canvas.repaint(region);
+            }
         }
-        canvas.repaint();
     }
-    
+
     /**
-     * Borra todo el canvas.
+     * Pasa las áreas recién pintadas de la imagen de trabajo a la publicada.
+     * Solo se copian esas áreas, así el candado de la imagen publicada se
+     * toma por poco tiempo.
+     * @param  regions  las áreas pintadas en este cuadro
      */
-    private void erase()
+    private void publish(java.awt.Rectangle[] regions)
     {
-        Color original = graphic.getColor();
-        graphic.setColor(backgroundColor);
-        Dimension size = canvas.getSize();
-        graphic.fill(new java.awt.Rectangle(0, 0, size.width, size.height));
-        graphic.setColor(original);
+        synchronized(publishLock) {
+            for(java.awt.Rectangle region : regions) {
+                int right = region.x + region.width;
+                int bottom = region.y + region.height;
+                publishedGraphic.drawImage(canvasImage, region.x, region.y, right, bottom,
+                                           region.x, region.y, right, bottom, null);
+            }
+        }
+    }
+
+    /**
+     * Redibuja solo las figuras que tocan el área dada. La carretera no se
+     * rellena figura por figura: se copia de su imagen ya pintada. Solo se
+     * rasterizan las figuras que el índice espacial encuentra en el área.
+     * @param  area  el área sucia en pixeles de la ventana
+     */
+    private void redraw(java.awt.Rectangle area)
+    {
+        if(!roadImageValid) {
+            renderRoadImage();
+        }
+        graphic.setClip(area);
+        int right = area.x + area.width;
+        int bottom = area.y + area.height;
+        graphic.drawImage(roadImage, area.x, area.y, right, bottom,
+                          area.x, area.y, right, bottom, null);
+        AffineTransform screen = graphic.getTransform();
+        graphic.transform(worldTransform());
+        fillShapes(graphic, visibleShapes(toWorld(area), false));
+        graphic.setTransform(screen);
+        java.util.List<ShapeDescription> overlay = new ArrayList<ShapeDescription>();
+        for(ShapeDescription description : hud.values()) {
+            if(description.getBounds().intersects(area)) {
+                overlay.add(description);
+            }
+        }
+        fillShapes(graphic, overlay);
+        graphic.setClip(null);
+    }
+
+    /**
+     * Pinta el fondo y las figuras visibles de la carretera (o el mapa de
+     * calor, si la vista está muy alejada) en su imagen.
+     * Solo ocurre cuando la carretera o la vista cambiaron desde el último
+     * cuadro.
+     */
+    private void renderRoadImage()
+    {
+        java.awt.Rectangle all = new java.awt.Rectangle(0, 0, width, height);
+        roadGraphic.setColor(backgroundColor);
+        roadGraphic.fill(all);
+        AffineTransform screen = roadGraphic.getTransform();
+        roadGraphic.transform(worldTransform());
+        if(isLevelOfDetail()) {
+            for(Road road : roads) {
+                road.paintOutline(roadGraphic);
+            }
+            fillHeatmap(roadGraphic, toWorld(all));
+        }
+        else {
+            for(Road road : roads) {
+                frameShapes += road.paint(roadGraphic, toWorld(all));
+            }
+            fillShapes(roadGraphic, visibleShapes(toWorld(all), true));
+        }
+        roadGraphic.setTransform(screen);
+        roadImageValid = true;
+    }
+
+    /**
+     * Rellena las figuras dadas. Solo cambia el color del Graphics2D cuando
+     * la figura siguiente tiene un color distinto a la anterior.
+     * @param  target        dónde se pinta
+     * @param  descriptions  las figuras en orden de dibujo
+     */
+    private void fillShapes(Graphics2D target, java.util.List<ShapeDescription> descriptions)
+    {
+        frameShapes += descriptions.size();
+        Color current = null;
+        for(ShapeDescription description : descriptions) {
+            Color color = description.getColor();
+            if(color != null && color != current) {
+                target.setColor(color);
+                current = color;
+            }
+            description.fill(target);
+        }
     }
 
 
@@ -148,72 +994,220 @@ public class Canvas
      */
     private class CanvasPane extends JPanel
     {
+        private Point dragStart;
+
+        /**
+         * Arrastrar con el mouse desplaza la vista; la rueda la acerca o aleja.
+         */
+        public CanvasPane()
+        {
+            MouseAdapter navigation = new MouseAdapter()
+            {
+                public void mousePressed(MouseEvent e)
+                {
+                    dragStart = e.getPoint();
+                }
+
+                public void mouseDragged(MouseEvent e)
+                {
+                    pan(e.getX() - dragStart.x, e.getY() - dragStart.y);
+                    dragStart = e.getPoint();
+                }
+
+                public void mouseWheelMoved(MouseWheelEvent e)
+                {
+                    zoomAt(Math.pow(1.1, -e.getPreciseWheelRotation()), e.getX(), e.getY());
+                }
+            };
+            addMouseListener(navigation);
+            addMouseMotionListener(navigation);
+            addMouseWheelListener(navigation);
+        }
+
         public void paint(Graphics g)
         {
-            g.drawImage(canvasImage, 0, 0, null);
+            synchronized(publishLock) {
+                g.drawImage(publishedImage, 0, 0, null);
+            }
+        }
+    }
+
+    /************************************************************************
+     * Clase interna RenderScheduler - hilo que pinta los cambios acumulados
+     * a la frecuencia configurada, para que la simulación nunca espere por
+     * el dibujo.
+     */
+    private class RenderScheduler implements Runnable
+    {
+        public void run()
+        {
+            while(true) {
+                long start = System.nanoTime();
+                renderFrame();
+                long remaining = frameNanos - (System.nanoTime() - start);
+                if(remaining > 0) {
+                    try {
+                        Thread.sleep(remaining / 1000000L, (int)(remaining % 1000000L));
+                    }
+                    catch(InterruptedException e) {
+                        return;
+                    }
+                }
+            }
+        }
+    }
+    
+    /************************************************************************
+     * Clase interna CaptureScheduler - hilo que toma una copia del Canvas a
+     * intervalos fijos y la entrega a una FrameCapture.
+     */
+    private class CaptureScheduler implements Runnable
+    {
+        private FrameCapture sink;
+        private long intervalNanos;
+
+        public CaptureScheduler(FrameCapture sink, int intervalMillis)
+        {
+            this.sink = sink;
+            intervalNanos = intervalMillis * 1000000L;
+        }
+
+        public void run()
+        {
+            long next = System.nanoTime();
+            try {
+                while(!Thread.currentThread().isInterrupted()) {
+                    sink.submit(snapshot());
+                    next += intervalNanos;
+                    long remaining = next - System.nanoTime();
+                    if(remaining > 0) {
+                        Thread.sleep(remaining / 1000000L, (int)(remaining % 1000000L));
+                    }
+                    else {
+                        next = System.nanoTime(); // atrasado: no intenta recuperar cuadros
+                    }
+                }
+            }
+            catch(InterruptedException e) {
+                // stopCapture
+            }
         }
     }
     
     /************************************************************************
      * Clase interna CanvasPane - almacena y maneja información sobre una 
-     * figura que debe ser dibujada.
+     * figura que debe ser dibujada: una figura de un color o un sprite.
      */
     private class ShapeDescription
     {
         private Shape shape;
-        private String colorString;
+        private Palette color;
+        private Sprite sprite;
+        private int spriteX;
+        private int spriteY;
+        private java.awt.Rectangle bounds;
+        private Layer layer;
+        private long sequence;
+        private int[] pathX;
+        private int[] pathY;
+        private long startNanos;
+        private long stepNanos;
 
-        public ShapeDescription(Shape shape, String color)
+        public ShapeDescription(Shape shape, Palette color, Layer layer)
         {
             this.shape = shape;
-            colorString = color;
+            this.color = color;
+            this.layer = layer;
+            // un pixel extra cubre el borde de figuras con coordenadas reales
+            bounds = shape.getBounds();
+            bounds.grow(1, 1);
+        }
+
+        public ShapeDescription(Sprite sprite, int x, int y, Layer layer)
+        {
+            this.sprite = sprite;
+            this.layer = layer;
+            placeSprite(x, y);
+        }
+
+        private void placeSprite(int x, int y)
+        {
+            bounds = sprite.getBounds();
+            bounds.translate(x, y);
+            spriteX = bounds.x;
+            spriteY = bounds.y;
+        }
+
+        /**
+         * Hace que el sprite recorra el camino dado, un tramo cada stepNanos.
+         */
+        public void animate(int[] xs, int[] ys, long start, long step)
+        {
+            pathX = xs;
+            pathY = ys;
+            startNanos = start;
+            stepNanos = step;
         }
 
-        public void draw(Graphics2D graphic)
+        /**
+         * Mueve el sprite al punto del camino que corresponde al tiempo dado,
+         * interpolando dentro del tramo.
+         * @return true si llegó al final del camino
+         */
+        public boolean advance(long now)
+        {
+            long elapsed = Math.max(0, now - startNanos);
+            int last = pathX.length - 1;
+            int step = (int)Math.min(last, elapsed / stepNanos);
+            if(step == last) {
+                placeSprite(pathX[last], pathY[last]);
+                return true;
+            }
+            double fraction = (elapsed - step * stepNanos) / (double)stepNanos;
+            placeSprite((int)Math.round(pathX[step] + fraction * (pathX[step + 1] - pathX[step])),
+                        (int)Math.round(pathY[step] + fraction * (pathY[step + 1] - pathY[step])));
+            return false;
+        }
+
+        public java.awt.Rectangle getBounds()
+        {
+            return bounds;
+        }
+
+        public Layer getLayer()
+        {
+            return layer;
+        }
+
+        public long getSequence()
+        {
+            return sequence;
+        }
+
+        public void setSequence(long sequence)
         {
-            setForegroundColor(colorString);
-            graphic.fill(shape);
+            this.sequence = sequence;
         }
 
         /**
-         * Set the foreground colour of the Canvas.
-         * @param  newColour   the new colour for the foreground of the Canvas 
+         * @return el color de la figura, o null si es un sprite
          */
-        private void setForegroundColor(String colorString)
-        {
-            if(colorString.equals("red")) {
-                graphic.setColor(new Color(235, 25, 25));
-            } else if(colorString.equals("black")) {
-                graphic.setColor(Color.black);
-            } else if(colorString.equals("blue")) {
-                graphic.setColor(new Color(30, 75, 220));
-            } else if(colorString.equals("yellow")) {
-                graphic.setColor(new Color(255, 230, 0));
-            } else if(colorString.equals("green")) {
-                graphic.setColor(new Color(80, 160, 60));
-            } else if(colorString.equals("magenta")) {
-                graphic.setColor(Color.magenta);
-            } else if(colorString.equals("white")) {
-                graphic.setColor(Color.white);
-            }else if(colorString.equals("brown")) { 
-                graphic.setColor(new Color(229, 217, 182));
-            }else if(colorString.equals("techo")) { 
-                graphic.setColor(new Color(78, 59, 49));
-            }else if(colorString.equals("arena")) { 
-                graphic.setColor(new Color(216, 184, 99));
-            }else if(colorString.equals("grey")) { 
-                graphic.setColor(new Color(128, 128, 128));
-            }else if(colorString.equals("azulmetal")) { 
-                graphic.setColor(new Color(51, 60, 135));    
-            }else if(colorString.equals("verdemetal")) { 
-                graphic.setColor(new Color(28, 84, 45)); 
-            }else if(colorString.equals("ladrillo")) { 
-                graphic.setColor(new Color(208, 73, 28)); 
-            }else if(colorString.equals("verdesito")) { 
-                graphic.setColor(new Color(189, 236, 182)); 
-                
-            } else {
-                graphic.setColor(Color.black);
+        public Color getColor()
+        {
+            return color == null ? null : color.getColor();
+        }
+
+        /**
+         * Rellena la figura con el color actual del Graphics2D, o copia la
+         * imagen del sprite.
+         */
+        public void fill(Graphics2D graphic)
+        {
+            if(sprite != null) {
+                graphic.drawImage(sprite.getImage(), spriteX, spriteY, null);
+            }
+            else {
+                graphic.fill(shape);
             }
         }
     }
@@ -15,15 +15,23 @@ public class Circle{
     private int diameter;
     private int xPosition;
     private int yPosition;
-    private String color;
+    private Palette color;
     private boolean isVisible;
+    private Renderer renderer;
+    private Layer layer;
     
 
     public Circle(){
+        this(Renderer.CANVAS);
+    }
+
+    public Circle(Renderer renderer){
+        this.renderer = renderer;
+        layer = Layer.SHAPES;
         diameter = 30;
         xPosition =0;
         yPosition =0;
-        color = "blue";
+        color = Palette.BLUE;
         isVisible = false;
     }
 
@@ -40,19 +48,16 @@ public class Circle{
     }
 
     private void draw(){
-        if(isVisible) {
-            Canvas canvas = Canvas.getCanvas();
-            canvas.draw(this, color, 
+        if(isVisible && !renderer.isHeadless()) {
+            renderer.draw(this, layer, color, 
                 new Ellipse2D.Double(xPosition, yPosition, 
                 diameter, diameter));
-            canvas.wait(10);
         }
     }
 
     private void erase(){
         if(isVisible) {
-            Canvas canvas = Canvas.getCanvas();
-            canvas.erase(this);
+            renderer.erase(this);
         }
     }
     
@@ -121,6 +126,9 @@ public class Circle{
         for(int i = 0; i < distance; i++){
             xPosition += delta;
             draw();
+            if(isVisible) {
+                renderer.wait(10);
+            }
         }
     }
 
@@ -141,6 +149,9 @@ public class Circle{
         for(int i = 0; i < distance; i++){
             yPosition += delta;
             draw();
+            if(isVisible) {
+                renderer.wait(10);
+            }
         }
     }
 
@@ -154,13 +165,24 @@ public class Circle{
         draw();
     }
 
+    /**
+     * Change the drawing layer. Shapes in later layers are always drawn
+     * on top of shapes in earlier layers.
+     * @param newLayer the new layer
+     */
+    public void setLayer(Layer newLayer){
+        erase();
+        layer = newLayer;
+        draw();
+    }
+
     /**
      * Change the color. 
      * @param color the new color. Valid colors are "red", "yellow", "blue", "green",
      * "magenta" and "black".
      */
     public void changeColor(String newColor){
-        color = newColor;
+        color = Palette.of(newColor);
         draw();
     }
 
@@ -200,13 +222,15 @@ public class Circle{
     }
     
     public Circle(double area) {
+        renderer = Renderer.CANVAS;
+        layer = Layer.SHAPES;
         if (area <= 0) {
             area = 1; 
         }   
         diameter = (int)(2 * Math.sqrt(area / PI));
         xPosition = 20;
         yPosition = 60;
-        color = "blue";
+        color = Palette.BLUE;
         isVisible = false;
     }
 
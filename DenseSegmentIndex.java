@@ -0,0 +1,81 @@
+import java.util.Arrays;
+
+/**
+ * DenseSegmentIndex guarda la posición de cada segmento en un arreglo con
+ * un dato por metro, más un bit por segmento ocupado para recorrerlos en
+ * orden saltando 64 segmentos vacíos a la vez. Todas las operaciones
+ * cuestan O(1) salvo los recorridos, pero la memoria crece con el largo de
+ * la carretera: SilkRoad lo usa solo en carreteras cortas.
+ *
+ * @author  SilkRoad
+ * @version 1.0
+ */
+public class DenseSegmentIndex implements SegmentIndex
+{
+    private int[] slots;        // posición de cada segmento, -1 si está vacío
+    private long[] bits;        // segmentos ocupados, un bit por segmento
+
+    /**
+     * Crea un índice vacío para una carretera del largo dado.
+     * @param  length  la cantidad de segmentos
+     */
+    public DenseSegmentIndex(int length)
+    {
+        slots = new int[length];
+        bits = new long[(length + 63) / 64];
+        Arrays.fill(slots, -1);
+    }
+
+    @Override
+    public int get(int location)
+    {
+        return location >= 0 && location < slots.length ? slots[location] : -1;
+    }
+
+    @Override
+    public void set(int location, int slot)
+    {
+        slots[location] = slot;
+        if(slot != -1) {
+            bits[location >> 6] |= 1L << location;
+        }
+        else {
+            bits[location >> 6] &= ~(1L << location);
+        }
+    }
+
+    @Override
+    public int next(int from)
+    {
+        int word = from >> 6;
+        if(word >= bits.length) {
+            return -1;
+        }
+        long current = bits[word] & (-1L << from);
+        while(current == 0) {
+            if(++word == bits.length) {
+                return -1;
+            }
+            current = bits[word];
+        }
+        return (word << 6) + Long.numberOfTrailingZeros(current);
+    }
+
+    @Override
+    public int last()
+    {
+        for(int word = bits.length - 1; word >= 0; word--) {
+            if(bits[word] != 0) {
+                return (word << 6) + 63 - Long.numberOfLeadingZeros(bits[word]);
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public void clear()
+    {
+        Arrays.fill(slots, -1);
+        Arrays.fill(bits, 0L);
+    }
+}
@@ -0,0 +1,155 @@
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DensityMap resume la ruta de seda por baldosas cuadradas del mundo: cuántas
+ * monedas en tiendas y cuántos robots hay en cada baldosa. SilkRoad la actualiza con cada cambio (sumando diferencias,
+ * sin recorrer todo), y el Canvas la usa para dibujar un mapa de calor cuando
+ * la vista está tan alejada que dibujar cada tienda y cada robot no se nota.
+ *
+ * Todos los métodos están sincronizados: la simulación escribe desde su hilo
+ * y el hilo de dibujo del Canvas lee.
+ *
+ * @author  SilkRoad
+ * @version 1.0
+ */
+public class DensityMap
+{
+    /** Lado de cada baldosa, en pixeles del mundo (4 x 4 cuadros de la carretera). */
+    public static final int TILE_SIZE = 260;
+
+    private static final int COINS = 0;
+    private static final int ROBOTS = 1;
+
+    private HashMap<Long, int[]> tiles;
+    private HashSet<Long> changed;
+
+    /**
+     * Crea un mapa vacío.
+     */
+    public DensityMap()
+    {
+        tiles = new HashMap<Long, int[]>();
+        changed = new HashSet<Long>();
+    }
+
+    /**
+     * Suma monedas de tienda a la baldosa que contiene el punto.
+     * @param  x      coordenada horizontal del mundo
+     * @param  y      coordenada vertical del mundo
+     * @param  delta  monedas a sumar (negativo para restar)
+     */
+    public synchronized void addCoins(int x, int y, int delta)
+    {
+        add(x, y, COINS, delta);
+    }
+
+    /**
+     * Suma robots a la baldosa que contiene el punto.
+     * @param  x      coordenada horizontal del mundo
+     * @param  y      coordenada vertical del mundo
+     * @param  delta  robots a sumar (negativo para restar)
+     */
+    public synchronized void addRobots(int x, int y, int delta)
+    {
+        add(x, y, ROBOTS, delta);
+    }
+
+    /**
+     * Quita todas las monedas y robots, dejando el mapa vacío.
+     */
+    public synchronized void clearEntities()
+    {
+        changed.addAll(tiles.keySet());
+        tiles.clear();
+    }
+
+    /**
+     * Agrega a target el rectángulo del mundo de cada baldosa que cambió
+     * desde la llamada anterior, y olvida esos cambios.
+     * @param  target  dónde se agregan los rectángulos
+     */
+    public synchronized void drainChanged(List<java.awt.Rectangle> target)
+    {
+        for(Long key : changed) {
+            target.add(new java.awt.Rectangle(tileX(key) * TILE_SIZE, tileY(key) * TILE_SIZE,
+                                              TILE_SIZE, TILE_SIZE));
+        }
+        changed.clear();
+    }
+
+    /**
+     * Agrega a target las baldosas no vacías que tocan el área, cada una
+     * como {x, y, monedas, robots} con x, y la esquina de la
+     * baldosa en el mundo.
+     * @param  area    el área del mundo buscada
+     * @param  target  dónde se agregan las baldosas
+     */
+    public synchronized void collect(java.awt.Rectangle area, List<int[]> target)
+    {
+        int firstX = Math.floorDiv(area.x, TILE_SIZE);
+        int lastX = Math.floorDiv(area.x + area.width, TILE_SIZE);
+        int firstY = Math.floorDiv(area.y, TILE_SIZE);
+        int lastY = Math.floorDiv(area.y + area.height, TILE_SIZE);
+        long visited = (long)(lastX - firstX + 1) * (lastY - firstY + 1);
+        if(visited > tiles.size()) {
+            // área más grande que lo ocupado: más barato revisar las baldosas existentes
+            for(Map.Entry<Long, int[]> entry : tiles.entrySet()) {
+                int tx = tileX(entry.getKey());
+                int ty = tileY(entry.getKey());
+                if(tx >= firstX && tx <= lastX && ty >= firstY && ty <= lastY) {
+                    addTile(tx, ty, entry.getValue(), target);
+                }
+            }
+            return;
+        }
+        for(int tx = firstX; tx <= lastX; tx++) {
+            for(int ty = firstY; ty <= lastY; ty++) {
+                int[] counts = tiles.get(key(tx, ty));
+                if(counts != null) {
+                    addTile(tx, ty, counts, target);
+                }
+            }
+        }
+    }
+
+    private void add(int x, int y, int column, int delta)
+    {
+        if(delta == 0) {
+            return;
+        }
+        Long key = key(Math.floorDiv(x, TILE_SIZE), Math.floorDiv(y, TILE_SIZE));
+        int[] counts = tiles.get(key);
+        if(counts == null) {
+            counts = new int[2];
+            tiles.put(key, counts);
+        }
+        counts[column] += delta;
+        if(counts[COINS] == 0 && counts[ROBOTS] == 0) {
+            tiles.remove(key);
+        }
+        changed.add(key);
+    }
+
+    private static void addTile(int tx, int ty, int[] counts, List<int[]> target)
+    {
+        target.add(new int[] {tx * TILE_SIZE, ty * TILE_SIZE, counts[COINS], counts[ROBOTS]});
+    }
+
+    private static Long key(int tx, int ty)
+    {
+        return ((long)tx << 32) | (ty & 0xffffffffL);
+    }
+
+    private static int tileX(long key)
+    {
+        return (int)(key >> 32);
+    }
+
+    private static int tileY(long key)
+    {
+        return (int)key;
+    }
+}
@@ -0,0 +1,237 @@
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import javax.imageio.ImageIO;
+
+/**
+ * FrameCapture guarda en disco los cuadros que le entrega un Canvas (ver
+ * Canvas.startCapture). La codificación ocurre en un hilo propio; entre el
+ * Canvas y ese hilo hay una cola de tamaño fijo, y cuando se llena el
+ * cuadro nuevo se descarta o se espera según la política escogida.
+ *
+ * Los cuadros se escriben como PNG numerados (frame-000000.png, ...) o
+ * todos seguidos en un solo archivo frames.raw: ancho y alto como int, y
+ * luego cada cuadro como ancho x alto pixeles RGB de un int cada uno.
+ *
+ * @author  SilkRoad
+ * @version 1.0
+ */
+public class FrameCapture
+{
+    /** Qué hacer con un cuadro nuevo cuando la cola está llena. */
+    public enum Policy
+    {
+        /** Descarta el cuadro nuevo; quien captura nunca espera. */
+        DROP,
+        /** Espera a que haya espacio; no se pierde ningún cuadro. */
+        BLOCK
+    }
+
+    /** Cómo se escriben los cuadros. */
+    public enum Format
+    {
+        /** Un archivo PNG por cuadro. */
+        PNG,
+        /** Un solo archivo con los pixeles sin comprimir. */
+        RAW
+    }
+
+    // Marca de fin de la cola para el hilo que codifica
+    private static final BufferedImage END = new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB);
+    // Cada cuánto revisa una espera con BLOCK si el hilo sigue vivo
+    private static final long WAIT_MILLIS = 100;
+
+    private File directory;
+    private Format format;
+    private Policy policy;
+    private BlockingQueue<BufferedImage> queue;
+    private Thread encoder;
+    private DataOutputStream raw;
+    private volatile boolean closed;
+    private volatile int framesWritten;
+    private volatile int framesDropped;
+
+    /**
+     * Crea la captura e inicia su hilo de codificación.
+     * @param  directory  carpeta donde se escriben los cuadros (se crea si no existe)
+     * @param  format     PNG o RAW
+     * @param  capacity   cuántos cuadros pueden esperar en la cola
+     * @param  policy     qué hacer cuando la cola está llena
+     */
+    public FrameCapture(File directory, Format format, int capacity, Policy policy)
+    {
+        if(capacity <= 0) {
+            throw new IllegalArgumentException("La capacidad debe ser mayor que 0");
+        }
+        if(!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IllegalArgumentException("No se pudo crear la carpeta " + directory);
+        }
+        this.directory = directory;
+        this.format = format;
+        this.policy = policy;
+        queue = new ArrayBlockingQueue<BufferedImage>(capacity);
+        encoder = new Thread(new Runnable()
+        {
+            public void run()
+            {
+                encodeFrames();
+            }
+        }, "FrameCapture-encoder");
+        encoder.setDaemon(true);
+        encoder.start();
+    }
+
+    /**
+     * Entrega un cuadro para escribir. La imagen pasa a ser de la captura:
+     * quien la entrega no debe volver a modificarla.
+     * @param  frame  el cuadro
+     * @return true si se encoló, false si se descartó (cola llena con DROP,
+     *         captura cerrada o hilo de codificación terminado)
+     * @throws InterruptedException si se interrumpe esperando con BLOCK
+     */
+    public boolean submit(BufferedImage frame) throws InterruptedException
+    {
+        if(closed) {
+            return false;
+        }
+        if(policy == Policy.BLOCK) {
+            return offerWhileEncoding(frame);
+        }
+        if(!queue.offer(frame)) {
+            framesDropped++;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return cuántos cuadros se han escrito en disco
+     */
+    public int getFramesWritten()
+    {
+        return framesWritten;
+    }
+
+    /**
+     * @return cuántos cuadros se descartaron por tener la cola llena
+     */
+    public int getFramesDropped()
+    {
+        return framesDropped;
+    }
+
+    /**
+     * @return cuántos cuadros esperan en la cola
+     */
+    public int getQueueDepth()
+    {
+        return queue.size();
+    }
+
+    /**
+     * Deja de aceptar cuadros, espera a que se escriban los que están en la
+     * cola y cierra los archivos.
+     */
+    public void close()
+    {
+        if(closed) {
+            return;
+        }
+        closed = true;
+        try {
+            offerWhileEncoding(END);
+            encoder.join();
+        }
+        catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Espera espacio en la cola para el cuadro mientras el hilo de
+     * codificación siga vivo; si terminó, nadie vaciaría la cola.
+     * @return true si se encoló, false si el hilo ya terminó
+     */
+    private boolean offerWhileEncoding(BufferedImage frame) throws InterruptedException
+    {
+        while(!queue.offer(frame, WAIT_MILLIS, TimeUnit.MILLISECONDS)) {
+            if(!encoder.isAlive()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Ciclo del hilo de codificación: escribe cada cuadro de la cola hasta
+     * encontrar la marca de fin.
+     */
+    private void encodeFrames()
+    {
+        try {
+            while(true) {
+                BufferedImage frame = queue.take();
+                if(frame == END) {
+                    break;
+                }
+                try {
+                    write(frame);
+                    framesWritten++;
+                }
+                catch(IOException | RuntimeException e) {
+                    // ImageIO también falla con excepciones no verificadas; se
+                    // sigue vaciando la cola para que nadie quede esperando
+                    System.out.println("No se pudo escribir el cuadro " + framesWritten + ": " + e.getMessage());
+                }
+            }
+        }
+        catch(InterruptedException e) {
+            // termina sin escribir lo que quedaba
+        }
+        finally {
+            if(raw != null) {
+                try {
+                    raw.close();
+                }
+                catch(IOException e) {
+                    System.out.println("No se pudo cerrar frames.raw: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void write(BufferedImage frame) throws IOException
+    {
+        if(format == Format.PNG) {
+            String name = String.format("frame-%06d.png", framesWritten);
+            ImageIO.write(frame, "png", new File(directory, name));
+            return;
+        }
+        int width = frame.getWidth();
+        int height = frame.getHeight();
+        if(raw == null) {
+            raw = new DataOutputStream(new BufferedOutputStream(
+                      new FileOutputStream(new File(directory, "frames.raw"))));
+            raw.writeInt(width);
+            raw.writeInt(height);
+        }
+        int[] row = new int[width];
+        byte[] bytes = new byte[width * 4];
+        for(int y = 0; y < height; y++) {
+            frame.getRGB(0, y, width, 1, row, 0, width);
+            for(int x = 0; x < width; x++) {
+                int pixel = row[x];
+                bytes[4 * x + 1] = (byte)(pixel >> 16);
+                bytes[4 * x + 2] = (byte)(pixel >> 8);
+                bytes[4 * x + 3] = (byte)pixel;
+            }
+            raw.write(bytes);
+        }
+    }
+}
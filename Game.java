@@ -11,13 +11,20 @@ public class Game {
     private ProfitBar profitBar;
     
     public Game(int roadLength) {
-        silkRoad = new SilkRoad(roadLength);
+        this(roadLength, Renderer.CANVAS);
+    }
+    
+    /*
+     * Crea el juego dibujando en el renderer dado (Renderer.NONE para correr sin pantalla)
+     */
+    public Game(int roadLength, Renderer renderer) {
+        silkRoad = new SilkRoad(roadLength, renderer);
         dayCounter = 0;
         totalCollected = 0;
         random = new Random();
         
         // Inicializar barra de progreso
-        profitBar = new ProfitBar();
+        profitBar = new ProfitBar(renderer);
     }
     
     /*
@@ -131,12 +138,8 @@ public class Game {
      * Calcula el total de monedas disponibles en todas las tiendas
      */
     private int getTotalCoinsInStores() {
-        int[][] storesData = silkRoad.stores();
-        int total = 0;
-        for (int i = 0; i < storesData.length; i++) {
-            total += storesData[i][1]; // [1] contiene los tenges
-        }
-        return total;
+        // SilkRoad mantiene el total con cada cambio
+        return silkRoad.totalStoreCoins();
     }
     
     /*
@@ -158,35 +161,16 @@ public class Game {
      * Obtiene el total de tenges recolectados por todos los robots en el día actual
      */
     public int getDailyCollected() {
-        int[][] robotsData = silkRoad.robots();
-        int total = 0;
-        for (int i = 0; i < robotsData.length; i++) {
-            total += robotsData[i][1]; // [1] contiene los tenges recolectados
-        }
-        return total;
+        // SilkRoad mantiene el total con cada cambio
+        return silkRoad.totalCollectedCoins();
     }
     
     /*
      * Verifica si un segmento está ocupado
      */
     public boolean isSegmentOccupied(int location) {
-        // Verificar en tiendas
-        int[][] storesData = silkRoad.stores();
-        for (int i = 0; i < storesData.length; i++) {
-            if (storesData[i][0] == location) { // [0] contiene la ubicación
-                return true;
-            }
-        }
-        
-        // Verificar en robots
-        int[][] robotsData = silkRoad.robots();
-        for (int i = 0; i < robotsData.length; i++) {
-            if (robotsData[i][0] == location) { // [0] contiene la ubicación
-                return true;
-            }
-        }
-        
-        return false;
+        // Consulta directa en el índice por segmento de SilkRoad (tiendas y robots)
+        return silkRoad.isOccupied(location);
     }
     
     /*
@@ -211,23 +195,8 @@ public class Game {
      * Estima el número de segmentos basado en las tiendas y robots existentes
      */
     private int getEstimatedSegmentCount() {
-        int maxLocation = 0;
-        
-        // Buscar la ubicación más alta en tiendas
-        int[][] storesData = silkRoad.stores();
-        for (int i = 0; i < storesData.length; i++) {
-            if (storesData[i][0] > maxLocation) {
-                maxLocation = storesData[i][0];
-            }
-        }
-        
-        // Buscar la ubicación más alta en robots
-        int[][] robotsData = silkRoad.robots();
-        for (int i = 0; i < robotsData.length; i++) {
-            if (robotsData[i][0] > maxLocation) {
-                maxLocation = robotsData[i][0];
-            }
-        }
+        // La ubicación más alta entre tiendas y robots
+        int maxLocation = Math.max(silkRoad.lastOccupiedLocation(), 0);
         
         // Devolver el máximo + un buffer de segmentos adicionales
         return Math.max(maxLocation + 10, 20); // Mínimo 20 segmentos
@@ -298,11 +267,11 @@ public class Game {
     }
     
     public int getStoreCount() { 
-        return silkRoad.stores().length; // Ahora es matriz, usar .length
+        return silkRoad.storeCount();
     }
     
     public int getRobotCount() { 
-        return silkRoad.robots().length; // Ahora es matriz, usar .length
+        return silkRoad.robotCount();
     }
     
     public int getTotalCollected() {
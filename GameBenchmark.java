@@ -0,0 +1,79 @@
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+/**
+ * GameBenchmark mide cuánto tarda Game.printState en un juego sin pantalla
+ * con n tiendas y n robots repartidos en una carretera de 4n segmentos.
+ * Para cada tamaño hace dos llamadas de calentamiento y luego promedia
+ * varias llamadas. Lo que imprime printState se descarta; solo se imprime
+ * el tiempo promedio.
+ *
+ * Uso: java GameBenchmark [repeticiones] [n ...]
+ * Sin argumentos usa 5 repeticiones y n = 500, 2000 y 20000.
+ *
+ * @author  SilkRoad
+ * @version 1.0
+ */
+public class GameBenchmark
+{
+    private static final int WARMUP = 2;
+    private static final int DEFAULT_REPETITIONS = 5;
+    private static final int[] DEFAULT_SIZES = {500, 2000, 20000};
+
+    private GameBenchmark()
+    {
+    }
+
+    public static void main(String[] args)
+    {
+        int repetitions = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_REPETITIONS;
+        int[] sizes = DEFAULT_SIZES;
+        if(args.length > 1) {
+            sizes = new int[args.length - 1];
+            for(int i = 1; i < args.length; i++) {
+                sizes[i - 1] = Integer.parseInt(args[i]);
+            }
+        }
+        PrintStream out = System.out;
+        for(int n : sizes) {
+            System.setOut(new PrintStream(new OutputStream()
+            {
+                public void write(int b)
+                {
+                }
+            }));
+            double millis;
+            try {
+                millis = measurePrintState(n, repetitions);
+            }
+            finally {
+                System.setOut(out);
+            }
+            System.out.println(String.format("n=%d  printState promedio %.2f ms (%d repeticiones)",
+                                             n, millis, repetitions));
+        }
+    }
+
+    /**
+     * Arma el juego de tamaño n y mide printState.
+     * @param  n            cuántas tiendas y cuántos robots
+     * @param  repetitions  cuántas llamadas promediar
+     * @return el tiempo promedio de una llamada, en milisegundos
+     */
+    private static double measurePrintState(int n, int repetitions)
+    {
+        Game game = new Game(4 * n, Renderer.NONE);
+        for(int i = 0; i < n; i++) {
+            game.placeStore(4 * i, 10 + i % 50);
+            game.placeRobot(4 * i + 2);
+        }
+        for(int i = 0; i < WARMUP; i++) {
+            game.printState();
+        }
+        long start = System.nanoTime();
+        for(int i = 0; i < repetitions; i++) {
+            game.printState();
+        }
+        return (System.nanoTime() - start) / 1e6 / repetitions;
+    }
+}
@@ -0,0 +1,111 @@
+import java.util.Arrays;
+
+/**
+ * HandleTable entrega identificadores estables (handles) para elementos que
+ * cambian de posición en un arreglo. Cada handle guarda un índice de la
+ * tabla y una generación: al liberar el handle la generación de su índice
+ * aumenta, así un handle viejo nunca se confunde con el elemento que luego
+ * reutilice ese índice. Crear, resolver y liberar un handle cuesta O(1).
+ *
+ * @author  SilkRoad
+ * @version 1.0
+ */
+public class HandleTable
+{
+    /** Valor que no corresponde a ningún handle. */
+    public static final long NONE = -1L;
+
+    private int[] slots;        // posición actual del elemento, -1 si el índice está libre
+    private int[] generations;
+    private int[] free;         // pila de índices libres
+    private int freeCount;
+    private int used;           // índices entregados alguna vez
+
+    /**
+     * Crea una tabla vacía.
+     */
+    public HandleTable()
+    {
+        slots = new int[16];
+        generations = new int[16];
+        free = new int[16];
+    }
+
+    /**
+     * Entrega un handle nuevo para el elemento en la posición dada.
+     * @param  slot  la posición del elemento
+     * @return el handle
+     */
+    public long allocate(int slot)
+    {
+        int index;
+        if(freeCount > 0) {
+            index = free[--freeCount];
+        }
+        else {
+            if(used == slots.length) {
+                slots = Arrays.copyOf(slots, used * 2);
+                generations = Arrays.copyOf(generations, used * 2);
+                free = Arrays.copyOf(free, used * 2);
+            }
+            index = used++;
+            generations[index] = 1;
+        }
+        slots[index] = slot;
+        return ((long)generations[index] << 32) | index;
+    }
+
+    /**
+     * @param  handle  un handle entregado por allocate
+     * @return la posición actual de su elemento, o -1 si el handle ya fue
+     *         liberado o no es de esta tabla
+     */
+    public int resolve(long handle)
+    {
+        int index = (int)handle;
+        if(handle < 0 || index < 0 || index >= used
+           || generations[index] != (int)(handle >>> 32)) {
+            return -1;
+        }
+        return slots[index];
+    }
+
+    /**
+     * Cambia la posición del elemento de un handle válido.
+     * @param  handle  el handle
+     * @param  slot    la nueva posición de su elemento
+     */
+    public void update(long handle, int slot)
+    {
+        slots[(int)handle] = slot;
+    }
+
+    /**
+     * Libera un handle válido; desde ahora resolve lo rechaza.
+     * @param  handle  el handle
+     */
+    public void release(long handle)
+    {
+        releaseIndex((int)handle);
+    }
+
+    /**
+     * Libera todos los handles entregados.
+     */
+    public void clear()
+    {
+        for(int index = 0; index < used; index++) {
+            if(slots[index] != -1) {
+                releaseIndex(index);
+            }
+        }
+    }
+
+    private void releaseIndex(int index)
+    {
+        slots[index] = -1;
+        // la generación siempre es positiva, así ningún handle vale NONE
+        generations[index] = generations[index] == Integer.MAX_VALUE ? 1 : generations[index] + 1;
+        free[freeCount++] = index;
+    }
+}
@@ -0,0 +1,163 @@
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * HandleTableCheck revisa que los handles sigan siendo válidos mientras su
+ * elemento exista y que un handle liberado nunca resuelva, aunque su
+ * índice ya se haya reutilizado. Lo prueba dos veces, con operaciones al
+ * azar comparadas contra un mapa: sobre HandleTable directamente y sobre
+ * los handles de robots de un SilkRoad sin pantalla, donde quitar un robot
+ * mueve al último a su lugar.
+ *
+ * Uso: java HandleTableCheck [operaciones] [semilla]
+ *
+ * @author  SilkRoad
+ * @version 1.0
+ */
+public class HandleTableCheck
+{
+    private static int failures;
+
+    private HandleTableCheck()
+    {
+    }
+
+    public static void main(String[] args)
+    {
+        int operations = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 1;
+        checkTable(operations, new Random(seed));
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(new OutputStream()
+        {
+            public void write(int b)
+            {
+            }
+        }));
+        try {
+            checkRobots(operations, new Random(seed));
+        }
+        finally {
+            System.setOut(out);
+        }
+        System.out.println(failures == 0 ? "ok (" + operations + " operaciones)" : failures + " fallas");
+        if(failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Entrega, libera y resuelve handles de una HandleTable.
+     */
+    private static void checkTable(int operations, Random random)
+    {
+        HandleTable table = new HandleTable();
+        HashMap<Long, Integer> live = new HashMap<Long, Integer>();
+        ArrayList<Long> liveHandles = new ArrayList<Long>();
+        ArrayList<Long> released = new ArrayList<Long>();
+        for(int step = 0; step < operations; step++) {
+            int operation = random.nextInt(10);
+            if(operation < 5 || liveHandles.isEmpty()) {
+                int slot = random.nextInt(1000);
+                long handle = table.allocate(slot);
+                if(handle == HandleTable.NONE || live.containsKey(handle) || released.contains(handle)) {
+                    fail("allocate repitió el handle " + handle);
+                }
+                live.put(handle, slot);
+                liveHandles.add(handle);
+            }
+            else if(operation < 8) {
+                long handle = liveHandles.remove(random.nextInt(liveHandles.size()));
+                table.release(handle);
+                live.remove(handle);
+                released.add(handle);
+            }
+            else if(operation < 9) {
+                long handle = liveHandles.get(random.nextInt(liveHandles.size()));
+                int slot = random.nextInt(1000);
+                table.update(handle, slot);
+                live.put(handle, slot);
+            }
+            else {
+                table.clear();
+                released.addAll(liveHandles);
+                live.clear();
+                liveHandles.clear();
+            }
+            for(Map.Entry<Long, Integer> entry : live.entrySet()) {
+                if(table.resolve(entry.getKey()) != entry.getValue()) {
+                    fail("el handle " + entry.getKey() + " resolvió " + table.resolve(entry.getKey())
+                         + " en vez de " + entry.getValue());
+                }
+            }
+            if(!released.isEmpty()) {
+                long old = released.get(random.nextInt(released.size()));
+                if(table.resolve(old) != -1) {
+                    fail("el handle liberado " + old + " resolvió " + table.resolve(old));
+                }
+            }
+        }
+        if(table.resolve(HandleTable.NONE) != -1) {
+            fail("NONE resolvió " + table.resolve(HandleTable.NONE));
+        }
+    }
+
+    /**
+     * Coloca, mueve y quita robots por handle en un SilkRoad sin pantalla.
+     */
+    private static void checkRobots(int operations, Random random)
+    {
+        int length = 200;
+        SilkRoad road = new SilkRoad(length, Renderer.NONE);
+        HashMap<Long, Integer> live = new HashMap<Long, Integer>();
+        ArrayList<Long> liveHandles = new ArrayList<Long>();
+        ArrayList<Long> removed = new ArrayList<Long>();
+        for(int step = 0; step < operations; step++) {
+            int operation = random.nextInt(3);
+            if(operation == 0 || liveHandles.isEmpty()) {
+                int location = random.nextInt(length);
+                long handle = road.placeRobotHandle(location);
+                if(handle != HandleTable.NONE) {
+                    live.put(handle, location);
+                    liveHandles.add(handle);
+                }
+            }
+            else if(operation == 1) {
+                long handle = liveHandles.remove(random.nextInt(liveHandles.size()));
+                road.removeRobotByHandle(handle);
+                live.remove(handle);
+                removed.add(handle);
+            }
+            else {
+                long handle = liveHandles.get(random.nextInt(liveHandles.size()));
+                int location = live.get(handle);
+                int meters = random.nextInt(length) - location;
+                road.moveRobotByHandle(handle, meters);
+                live.put(handle, location + meters);
+            }
+            for(Map.Entry<Long, Integer> entry : live.entrySet()) {
+                if(road.robotLocation(entry.getKey()) != entry.getValue()) {
+                    fail("el robot " + entry.getKey() + " está en " + road.robotLocation(entry.getKey())
+                         + " en vez de " + entry.getValue());
+                }
+            }
+            if(!removed.isEmpty()) {
+                long old = removed.get(random.nextInt(removed.size()));
+                if(road.robotLocation(old) != -1) {
+                    fail("el robot quitado " + old + " sigue en " + road.robotLocation(old));
+                }
+            }
+        }
+    }
+
+    private static void fail(String message)
+    {
+        if(failures++ < 10) {
+            System.err.println("Falla: " + message);
+        }
+    }
+}
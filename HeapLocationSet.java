@@ -0,0 +1,114 @@
+import java.util.Arrays;
+
+/**
+ * HeapLocationSet es el LocationSet que guarda sus palabras en el heap, en
+ * una tabla hash de enteros con direccionamiento abierto (sin objetos por
+ * palabra).
+ *
+ * @author  SilkRoad
+ * @version 1.0
+ */
+public class HeapLocationSet extends LocationSet
+{
+    private static final int INITIAL_CAPACITY = 16;
+
+    // Tabla hash: keys[i] == -1 marca una casilla libre
+    private int[] keys;
+    private long[] words;
+    private int size;
+
+    /**
+     * Crea un conjunto vacío.
+     */
+    public HeapLocationSet()
+    {
+        clear();
+    }
+
+    @Override
+    public void clear()
+    {
+        keys = new int[INITIAL_CAPACITY];
+        words = new long[INITIAL_CAPACITY];
+        Arrays.fill(keys, -1);
+        size = 0;
+    }
+
+    @Override
+    protected long getWord(int key)
+    {
+        int mask = keys.length - 1;
+        for(int i = hash(key) & mask; keys[i] != -1; i = (i + 1) & mask) {
+            if(keys[i] == key) {
+                return words[i];
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    protected void putWord(int key, long word)
+    {
+        int mask = keys.length - 1;
+        int i = hash(key) & mask;
+        while(keys[i] != -1) {
+            if(keys[i] == key) {
+                words[i] = word;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        words[i] = word;
+        size++;
+        if(2 * size > keys.length) {
+            resize(keys.length * 2);
+        }
+    }
+
+    // Vacía la casilla de la clave corriendo hacia atrás las que la siguen
+    @Override
+    protected void removeWord(int key)
+    {
+        int mask = keys.length - 1;
+        int i = hash(key) & mask;
+        while(keys[i] != key) {
+            if(keys[i] == -1) {
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        int gap = i;
+        for(int j = (gap + 1) & mask; keys[j] != -1; j = (j + 1) & mask) {
+            int home = hash(keys[j]) & mask;
+            // la casilla j puede ocupar el hueco si su casilla ideal no está entre gap y j
+            if(((j - home) & mask) >= ((j - gap) & mask)) {
+                keys[gap] = keys[j];
+                words[gap] = words[j];
+                gap = j;
+            }
+        }
+        keys[gap] = -1;
+        size--;
+    }
+
+    private void resize(int capacity)
+    {
+        int[] oldKeys = keys;
+        long[] oldWords = words;
+        keys = new int[capacity];
+        words = new long[capacity];
+        Arrays.fill(keys, -1);
+        int mask = capacity - 1;
+        for(int k = 0; k < oldKeys.length; k++) {
+            if(oldKeys[k] != -1) {
+                int i = hash(oldKeys[k]) & mask;
+                while(keys[i] != -1) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[k];
+                words[i] = oldWords[k];
+            }
+        }
+    }
+}
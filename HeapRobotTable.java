@@ -0,0 +1,107 @@
+import java.util.Arrays;
+
+/**
+ * HeapRobotTable es la RobotTable en el heap: guarda los datos de los
+ * robots en arreglos de enteros, una columna por dato.
+ *
+ * @author  SilkRoad
+ * @version 1.0
+ */
+public class HeapRobotTable implements RobotTable
+{
+    private int[] locations;
+    private int[] initialSegments;
+    private int[] dailyCoins;
+    private int size;
+
+    /**
+     * Crea una tabla vacía.
+     */
+    public HeapRobotTable()
+    {
+        locations = new int[16];
+        initialSegments = new int[16];
+        dailyCoins = new int[16];
+    }
+
+    @Override
+    public int add(int location)
+    {
+        if(size == locations.length) {
+            locations = Arrays.copyOf(locations, size * 2);
+            initialSegments = Arrays.copyOf(initialSegments, size * 2);
+            dailyCoins = Arrays.copyOf(dailyCoins, size * 2);
+        }
+        int slot = size++;
+        locations[slot] = location;
+        initialSegments[slot] = location;
+        dailyCoins[slot] = 0;
+        return slot;
+    }
+
+    @Override
+    public int addCopy(RobotTable source, int slot)
+    {
+        int copy = add(source.getLocation(slot));
+        initialSegments[copy] = source.getInitialSegment(slot);
+        dailyCoins[copy] = source.getDailyCoins(slot);
+        return copy;
+    }
+
+    @Override
+    public void remove(int slot)
+    {
+        int last = --size;
+        locations[slot] = locations[last];
+        initialSegments[slot] = initialSegments[last];
+        dailyCoins[slot] = dailyCoins[last];
+    }
+
+    @Override
+    public void clear()
+    {
+        size = 0;
+    }
+
+    @Override
+    public int size()
+    {
+        return size;
+    }
+
+    @Override
+    public int getLocation(int slot)
+    {
+        return locations[slot];
+    }
+
+    @Override
+    public void setLocation(int slot, int location)
+    {
+        locations[slot] = location;
+    }
+
+    @Override
+    public int getInitialSegment(int slot)
+    {
+        return initialSegments[slot];
+    }
+
+    @Override
+    public int getDailyCoins(int slot)
+    {
+        return dailyCoins[slot];
+    }
+
+    @Override
+    public void addCoins(int slot, int amount)
+    {
+        dailyCoins[slot] += amount;
+    }
+
+    @Override
+    public void resetDay(int slot)
+    {
+        dailyCoins[slot] = 0;
+    }
+}
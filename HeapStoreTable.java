@@ -0,0 +1,117 @@
+import java.util.Arrays;
+
+/**
+ * HeapStoreTable es la StoreTable en el heap: guarda los datos de las
+ * tiendas en arreglos de enteros, una columna por dato. Así sumar o
+ * recorrer monedas lee memoria contigua en vez de saltar de objeto en
+ * objeto.
+ *
+ * @author  SilkRoad
+ * @version 1.0
+ */
+public class HeapStoreTable implements StoreTable
+{
+    private int[] locations;
+    private int[] coins;
+    private int[] initialCoins;
+    private int[] timesEmptied;
+    private int size;
+
+    /**
+     * Crea una tabla vacía.
+     */
+    public HeapStoreTable()
+    {
+        locations = new int[16];
+        coins = new int[16];
+        initialCoins = new int[16];
+        timesEmptied = new int[16];
+    }
+
+    @Override
+    public int add(int location, int tenges)
+    {
+        if(size == locations.length) {
+            locations = Arrays.copyOf(locations, size * 2);
+            coins = Arrays.copyOf(coins, size * 2);
+            initialCoins = Arrays.copyOf(initialCoins, size * 2);
+            timesEmptied = Arrays.copyOf(timesEmptied, size * 2);
+        }
+        int slot = size++;
+        locations[slot] = location;
+        coins[slot] = tenges;
+        initialCoins[slot] = tenges;
+        timesEmptied[slot] = 0;
+        return slot;
+    }
+
+    @Override
+    public int addCopy(StoreTable source, int slot)
+    {
+        int copy = add(source.getLocation(slot), source.getInitialCoins(slot));
+        coins[copy] = source.getCoins(slot);
+        timesEmptied[copy] = source.getTimesEmptied(slot);
+        return copy;
+    }
+
+    @Override
+    public void remove(int slot)
+    {
+        int last = --size;
+        locations[slot] = locations[last];
+        coins[slot] = coins[last];
+        initialCoins[slot] = initialCoins[last];
+        timesEmptied[slot] = timesEmptied[last];
+    }
+
+    @Override
+    public void clear()
+    {
+        size = 0;
+    }
+
+    @Override
+    public int size()
+    {
+        return size;
+    }
+
+    @Override
+    public int getLocation(int slot)
+    {
+        return locations[slot];
+    }
+
+    @Override
+    public int getCoins(int slot)
+    {
+        return coins[slot];
+    }
+
+    @Override
+    public void setCoins(int slot, int value)
+    {
+        if(coins[slot] != 0 && value == 0) {
+            timesEmptied[slot]++;
+        }
+        coins[slot] = value;
+    }
+
+    @Override
+    public void restock(int slot)
+    {
+        coins[slot] = initialCoins[slot];
+    }
+
+    @Override
+    public int getInitialCoins(int slot)
+    {
+        return initialCoins[slot];
+    }
+
+    @Override
+    public int getTimesEmptied(int slot)
+    {
+        return timesEmptied[slot];
+    }
+}
@@ -0,0 +1,21 @@
+/**
+ * Capas de dibujo del Canvas, de la más profunda a la más superficial.
+ * Cada figura se dibuja sobre todas las figuras de las capas anteriores,
+ * sin importar el orden en que se registraron.
+ *
+ * @author  SilkRoad
+ * @version 1.0
+ */
+public enum Layer
+{
+    /** Carretera: cuadros y líneas del camino. */
+    ROAD,
+    /** Tiendas. */
+    STORES,
+    /** Robots. */
+    ROBOTS,
+    /** Figuras sueltas creadas directamente (capa por defecto). */
+    SHAPES,
+    /** Interfaz: barra de ganancia, siempre encima de todo. */
+    HUD
+}
@@ -0,0 +1,140 @@
+/**
+ * LocationSet es un conjunto de ubicaciones (enteros no negativos) que
+ * permite recorrerlas en orden. Las guarda como un árbol de bits de 64
+ * ramas: en el nivel 0 cada palabra de 64 bits marca 64 ubicaciones
+ * seguidas, y en cada nivel de arriba un bit marca si la palabra de abajo
+ * tiene algo. Seis niveles cubren todas las ubicaciones posibles, así
+ * agregar, quitar, buscar la siguiente ubicación y la última cuestan a lo
+ * sumo seis palabras, sin importar cuántas ubicaciones haya.
+ *
+ * Solo se guardan las palabras distintas de cero, en una tabla hash de
+ * enteros a long; las subclases deciden dónde vive esa tabla.
+ *
+ * @author  SilkRoad
+ * @version 1.0
+ */
+public abstract class LocationSet
+{
+    // 6 bits por nivel: seis niveles cubren los 31 bits de una ubicación
+    private static final int LEVELS = 6;
+
+    /**
+     * Agrega una ubicación; si ya estaba no hace nada.
+     * @param  location  la ubicación, no negativa
+     */
+    public void add(int location)
+    {
+        int position = location;
+        for(int level = 0; level < LEVELS; level++) {
+            int key = key(level, position >>> 6);
+            long word = getWord(key);
+            putWord(key, word | (1L << position));
+            if(word != 0) {
+                return; // los niveles de arriba ya marcan esta palabra
+            }
+            position >>>= 6;
+        }
+    }
+
+    /**
+     * Quita una ubicación; si no estaba no hace nada.
+     * @param  location  la ubicación, no negativa
+     */
+    public void remove(int location)
+    {
+        int position = location;
+        for(int level = 0; level < LEVELS; level++) {
+            int key = key(level, position >>> 6);
+            long word = getWord(key);
+            if((word & (1L << position)) == 0) {
+                return;
+            }
+            word &= ~(1L << position);
+            if(word != 0) {
+                putWord(key, word);
+                return;
+            }
+            removeWord(key); // la palabra quedó vacía: se desmarca arriba
+            position >>>= 6;
+        }
+    }
+
+    /**
+     * @param  from  una ubicación
+     * @return la primera ubicación del conjunto desde from (inclusive), o
+     *         -1 si no hay más
+     */
+    public int next(int from)
+    {
+        int position = Math.max(from, 0);
+        for(int level = 0; level < LEVELS; level++) {
+            long word = getWord(key(level, position >>> 6)) & (-1L << position);
+            if(word != 0) {
+                position = (position & ~63) | Long.numberOfTrailingZeros(word);
+                // bajar por el bit más bajo de cada palabra
+                for(int lower = level - 1; lower >= 0; lower--) {
+                    position = (position << 6) | Long.numberOfTrailingZeros(getWord(key(lower, position)));
+                }
+                return position;
+            }
+            // nada más en esta palabra: seguir desde la palabra siguiente, un nivel arriba
+            position = (position >>> 6) + 1;
+        }
+        return -1;
+    }
+
+    /**
+     * @return la ubicación más alta del conjunto, o -1 si está vacío
+     */
+    public int last()
+    {
+        long word = getWord(key(LEVELS - 1, 0));
+        if(word == 0) {
+            return -1;
+        }
+        int position = 63 - Long.numberOfLeadingZeros(word);
+        for(int level = LEVELS - 2; level >= 0; level--) {
+            position = (position << 6) | (63 - Long.numberOfLeadingZeros(getWord(key(level, position))));
+        }
+        return position;
+    }
+
+    /**
+     * Deja el conjunto vacío.
+     */
+    public abstract void clear();
+
+    /**
+     * @param  key  la clave de una palabra, no negativa
+     * @return la palabra guardada, o 0 si no hay
+     */
+    protected abstract long getWord(int key);
+
+    /**
+     * Guarda una palabra distinta de cero.
+     * @param  key   la clave de la palabra, no negativa
+     * @param  word  la palabra
+     */
+    protected abstract void putWord(int key, long word);
+
+    /**
+     * Olvida la palabra de la clave, que quedó en cero.
+     * @param  key  la clave de la palabra
+     */
+    protected abstract void removeWord(int key);
+
+    /**
+     * Mezcla una clave para la tabla hash.
+     */
+    protected static int hash(int key)
+    {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    // Clave de la palabra index del nivel dado; index < 2^26 en todos los niveles
+    private static int key(int level, int index)
+    {
+        return (level << 26) | index;
+    }
+}
@@ -0,0 +1,165 @@
+import java.util.Arrays;
+
+/**
+ * MoveHistory guarda los movimientos del día de cada robot (metros movidos
+ * y monedas recogidas) sin crear un objeto por movimiento. Todos los
+ * movimientos van a un registro común de arreglos de enteros, uno por
+ * columna, y cada robot encadena los suyos dentro del registro.
+ *
+ * Los robots se identifican por su posición (slot) en las listas de
+ * SilkRoad. Empezar un día nuevo cuesta O(1): el registro se vacía y cada
+ * robot guarda el día de su historial, así un historial de un día anterior
+ * se lee como vacío sin tener que recorrer los robots.
+ *
+ * @author  SilkRoad
+ * @version 1.0
+ */
+public class MoveHistory
+{
+    // Registro de movimientos, una columna por dato
+    private int[] meters;
+    private int[] coins;
+    private int[] next;         // siguiente movimiento del mismo robot, -1 si es el último
+    private int size;
+
+    // Historial de cada robot
+    private int[] first;        // primer movimiento del robot, -1 si no tiene
+    private int[] last;
+    private int[] counts;
+    private int[] days;         // día al que pertenece el historial del robot
+    private int day;
+
+    /**
+     * Crea un historial vacío.
+     */
+    public MoveHistory()
+    {
+        meters = new int[64];
+        coins = new int[64];
+        next = new int[64];
+        first = new int[16];
+        last = new int[16];
+        counts = new int[16];
+        days = new int[16];
+    }
+
+    /**
+     * Deja vacío el historial del robot de la posición dada.
+     * @param  slot  la posición del robot
+     */
+    public void addRobot(int slot)
+    {
+        if(slot >= first.length) {
+            int capacity = Math.max(slot + 1, first.length * 2);
+            first = Arrays.copyOf(first, capacity);
+            last = Arrays.copyOf(last, capacity);
+            counts = Arrays.copyOf(counts, capacity);
+            days = Arrays.copyOf(days, capacity);
+        }
+        first[slot] = -1;
+        last[slot] = -1;
+        counts[slot] = 0;
+        days[slot] = day;
+    }
+
+    /**
+     * Pasa el historial del robot de la posición from a la posición to,
+     * cuando SilkRoad llena un hueco de sus listas con el último robot.
+     * @param  from  la posición anterior del robot
+     * @param  to    la nueva posición del robot
+     */
+    public void moveRobot(int from, int to)
+    {
+        first[to] = first[from];
+        last[to] = last[from];
+        counts[to] = counts[from];
+        days[to] = days[from];
+    }
+
+    /**
+     * Agrega un movimiento al final del historial de un robot.
+     * @param  slot        la posición del robot
+     * @param  metersMoved los metros movidos
+     * @param  collected   las monedas recogidas en el movimiento
+     */
+    public void append(int slot, int metersMoved, int collected)
+    {
+        if(size == meters.length) {
+            meters = Arrays.copyOf(meters, size * 2);
+            coins = Arrays.copyOf(coins, size * 2);
+            next = Arrays.copyOf(next, size * 2);
+        }
+        int move = size++;
+        meters[move] = metersMoved;
+        coins[move] = collected;
+        next[move] = -1;
+        if(days[slot] != day) {
+            days[slot] = day;
+            counts[slot] = 0;
+            first[slot] = -1;
+        }
+        if(first[slot] == -1) {
+            first[slot] = move;
+        }
+        else {
+            next[last[slot]] = move;
+        }
+        last[slot] = move;
+        counts[slot]++;
+    }
+
+    /**
+     * @param  slot  la posición del robot
+     * @return cuántos movimientos tiene el robot en el día
+     */
+    public int count(int slot)
+    {
+        return days[slot] == day ? counts[slot] : 0;
+    }
+
+    /**
+     * @param  slot  la posición del robot
+     * @return el primer movimiento del día del robot, o -1 si no tiene
+     */
+    public int firstMove(int slot)
+    {
+        return days[slot] == day ? first[slot] : -1;
+    }
+
+    /**
+     * @param  move  un movimiento
+     * @return el siguiente movimiento del mismo robot, o -1 si no hay más
+     */
+    public int nextMove(int move)
+    {
+        return next[move];
+    }
+
+    /**
+     * @param  move  un movimiento
+     * @return los metros movidos
+     */
+    public int meters(int move)
+    {
+        return meters[move];
+    }
+
+    /**
+     * @param  move  un movimiento
+     * @return las monedas recogidas
+     */
+    public int coins(int move)
+    {
+        return coins[move];
+    }
+
+    /**
+     * Empieza un día nuevo: todos los historiales quedan vacíos. Los
+     * arreglos conservan su tamaño para reutilizarse.
+     */
+    public void newDay()
+    {
+        day++;
+        size = 0;
+    }
+}
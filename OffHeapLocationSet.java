@@ -0,0 +1,136 @@
+import java.io.File;
+
+/**
+ * OffHeapLocationSet es el LocationSet que guarda sus palabras fuera del
+ * heap: la misma tabla hash con direccionamiento abierto que
+ * HeapLocationSet, en un bloque OffHeapMemory.
+ *
+ * Cada casilla de la tabla es un registro de 16 bytes:
+ *   0  clave + 1 (0 marca una casilla libre)
+ *   8  palabra
+ * Así un bloque recién creado, lleno de ceros, ya es una tabla vacía.
+ *
+ * @author  SilkRoad
+ * @version 1.0
+ */
+public class OffHeapLocationSet extends LocationSet
+{
+    private static final int RECORD = 16;
+    private static final int INITIAL_CAPACITY = 1024;   // casillas
+
+    private OffHeapMemory table;
+    private int capacity;       // casillas de la tabla, potencia de dos
+    private int size;
+
+    /**
+     * Crea un conjunto vacío.
+     * @param  file  el archivo donde mapear la tabla, o null para usar
+     *               memoria directa
+     */
+    public OffHeapLocationSet(File file)
+    {
+        capacity = INITIAL_CAPACITY;
+        table = new OffHeapMemory(capacity * RECORD, file);
+    }
+
+    @Override
+    public void clear()
+    {
+        table.clear(capacity * RECORD);
+        size = 0;
+    }
+
+    @Override
+    protected long getWord(int key)
+    {
+        int mask = capacity - 1;
+        for(int i = hash(key) & mask; key(i) != 0; i = (i + 1) & mask) {
+            if(key(i) == key + 1) {
+                return table.getLong(i * RECORD + 8);
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    protected void putWord(int key, long word)
+    {
+        int mask = capacity - 1;
+        int i = hash(key) & mask;
+        while(key(i) != 0) {
+            if(key(i) == key + 1) {
+                table.putLong(i * RECORD + 8, word);
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        if(2 * (size + 1) > capacity && (long)capacity * 2 * RECORD > Integer.MAX_VALUE) {
+            throw new IllegalStateException("El conjunto off-heap no puede guardar más de "
+                                            + size + " palabras");
+        }
+        write(i, key + 1, word);
+        size++;
+        if(2 * size > capacity) {
+            resize(capacity * 2);
+        }
+    }
+
+    // Vacía la casilla de la clave corriendo hacia atrás las que la siguen
+    @Override
+    protected void removeWord(int key)
+    {
+        int mask = capacity - 1;
+        int i = hash(key) & mask;
+        while(key(i) != key + 1) {
+            if(key(i) == 0) {
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        int gap = i;
+        for(int j = (gap + 1) & mask; key(j) != 0; j = (j + 1) & mask) {
+            int home = hash(key(j) - 1) & mask;
+            // la casilla j puede ocupar el hueco si su casilla ideal no está entre gap y j
+            if(((j - home) & mask) >= ((j - gap) & mask)) {
+                write(gap, key(j), table.getLong(j * RECORD + 8));
+                gap = j;
+            }
+        }
+        write(gap, 0, 0);
+        size--;
+    }
+
+    private int key(int i)
+    {
+        return table.getInt(i * RECORD);
+    }
+
+    private void write(int i, int key, long word)
+    {
+        table.putInt(i * RECORD, key);
+        table.putLong(i * RECORD + 8, word);
+    }
+
+    // Duplica la tabla: copia las casillas a un bloque temporal de memoria
+    // directa y desde ahí las reubica en la tabla agrandada
+    private void resize(int newCapacity)
+    {
+        int oldCapacity = capacity;
+        OffHeapMemory old = new OffHeapMemory(oldCapacity * RECORD, null);
+        table.copyTo(0, old, 0, oldCapacity * RECORD);
+        table.grow(newCapacity * RECORD);
+        table.clear(newCapacity * RECORD);
+        capacity = newCapacity;
+        int mask = capacity - 1;
+        for(int k = 0; k < oldCapacity; k++) {
+            int key = old.getInt(k * RECORD);
+            if(key != 0) {
+                int i = hash(key - 1) & mask;
+                while(key(i) != 0) {
+                    i = (i + 1) & mask;
+                }
+                write(i, key, old.getLong(k * RECORD + 8));
+            }
+        }
+    }
+}
@@ -0,0 +1,140 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * OffHeapMemory es un bloque de memoria fuera del heap de Java, leído y
+ * escrito como enteros en posiciones (en bytes) fijas. Las tablas off-heap
+ * de SilkRoad guardan en él registros de tamaño fijo, así el recolector de
+ * basura nunca recorre esos datos.
+ *
+ * El bloque es memoria directa o, si se da un archivo, el archivo mapeado
+ * en memoria: el sistema operativo carga y descarga sus páginas según se
+ * usen. En los dos casos un bloque nuevo empieza lleno de ceros.
+ *
+ * @author  SilkRoad
+ * @version 1.0
+ */
+public class OffHeapMemory
+{
+    private ByteBuffer buffer;
+    private File file;          // archivo mapeado, null si es memoria directa
+
+    /**
+     * Crea un bloque lleno de ceros.
+     * @param  bytes  el tamaño del bloque
+     * @param  file   el archivo a mapear (se vacía si existe), o null para
+     *                usar memoria directa
+     */
+    public OffHeapMemory(int bytes, File file)
+    {
+        this.file = file;
+        if(file == null) {
+            buffer = ByteBuffer.allocateDirect(bytes);
+        }
+        else {
+            buffer = map(file, bytes, true);
+        }
+        buffer.order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * @return el tamaño del bloque en bytes
+     */
+    public int capacity()
+    {
+        return buffer.capacity();
+    }
+
+    public int getInt(int offset)
+    {
+        return buffer.getInt(offset);
+    }
+
+    public void putInt(int offset, int value)
+    {
+        buffer.putInt(offset, value);
+    }
+
+    public long getLong(int offset)
+    {
+        return buffer.getLong(offset);
+    }
+
+    public void putLong(int offset, long value)
+    {
+        buffer.putLong(offset, value);
+    }
+
+    /**
+     * Agranda el bloque conservando su contenido; los bytes nuevos quedan
+     * en cero. Un archivo mapeado simplemente se vuelve a mapear más grande.
+     * @param  bytes  el nuevo tamaño, mayor que el actual
+     */
+    public void grow(int bytes)
+    {
+        ByteBuffer old = buffer;
+        if(file == null) {
+            buffer = ByteBuffer.allocateDirect(bytes);
+            buffer.put(old.duplicate().clear());
+        }
+        else {
+            buffer = map(file, bytes, false);
+        }
+        buffer.order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Agranda el bloque, al doble o a lo necesario, si no alcanza para los
+     * bytes dados. El doble se limita a Integer.MAX_VALUE, el máximo de un
+     * bloque.
+     * @param  bytes  cuántos bytes se necesitan
+     */
+    public void ensureCapacity(int bytes)
+    {
+        if(bytes > buffer.capacity()) {
+            grow((int)Math.min(Integer.MAX_VALUE, Math.max(bytes, 2L * buffer.capacity())));
+        }
+    }
+
+    /**
+     * Copia bytes de este bloque a otro.
+     * @param  from    dónde empiezan los bytes a copiar en este bloque
+     * @param  target  el bloque donde se copian
+     * @param  to      dónde se copian en target
+     * @param  bytes   cuántos bytes copiar
+     */
+    public void copyTo(int from, OffHeapMemory target, int to, int bytes)
+    {
+        target.buffer.put(to, buffer, from, bytes);
+    }
+
+    /**
+     * Deja en cero los primeros bytes del bloque.
+     * @param  bytes  cuántos bytes limpiar
+     */
+    public void clear(int bytes)
+    {
+        for(int offset = 0; offset < bytes; offset += 4) {
+            buffer.putInt(offset, 0);
+        }
+    }
+
+    private static ByteBuffer map(File file, int bytes, boolean truncate)
+    {
+        try(RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            if(truncate) {
+                raf.setLength(0);
+            }
+            // el mapeo sigue vivo después de cerrar el archivo
+            return raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+        }
+        catch(IOException e) {
+            throw new UncheckedIOException("No se pudo mapear " + file, e);
+        }
+    }
+}
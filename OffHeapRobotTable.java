@@ -0,0 +1,113 @@
+import java.io.File;
+
+/**
+ * OffHeapRobotTable es la RobotTable que guarda sus filas fuera del heap,
+ * en un bloque OffHeapMemory, con un registro de 12 bytes por robot:
+ *   0   ubicación
+ *   4   segmento inicial
+ *   8   monedas recogidas en el día
+ *
+ * @author  SilkRoad
+ * @version 1.0
+ */
+public class OffHeapRobotTable implements RobotTable
+{
+    private static final int RECORD = 12;
+    private static final int LOCATION = 0;
+    private static final int INITIAL_SEGMENT = 4;
+    private static final int DAILY_COINS = 8;
+
+    private OffHeapMemory memory;
+    private int size;
+
+    /**
+     * Crea una tabla vacía.
+     * @param  file  el archivo donde mapear las filas, o null para usar
+     *               memoria directa
+     */
+    public OffHeapRobotTable(File file)
+    {
+        memory = new OffHeapMemory(64 * RECORD, file);
+    }
+
+    @Override
+    public int add(int location)
+    {
+        if((long)(size + 1) * RECORD > Integer.MAX_VALUE) {
+            throw new IllegalStateException("La tabla off-heap no puede guardar más de "
+                                            + size + " robots");
+        }
+        memory.ensureCapacity((size + 1) * RECORD);
+        int slot = size++;
+        memory.putInt(slot * RECORD + LOCATION, location);
+        memory.putInt(slot * RECORD + INITIAL_SEGMENT, location);
+        memory.putInt(slot * RECORD + DAILY_COINS, 0);
+        return slot;
+    }
+
+    @Override
+    public int addCopy(RobotTable source, int slot)
+    {
+        int copy = add(source.getLocation(slot));
+        memory.putInt(copy * RECORD + INITIAL_SEGMENT, source.getInitialSegment(slot));
+        memory.putInt(copy * RECORD + DAILY_COINS, source.getDailyCoins(slot));
+        return copy;
+    }
+
+    @Override
+    public void remove(int slot)
+    {
+        int last = --size;
+        for(int field = 0; field < RECORD; field += 4) {
+            memory.putInt(slot * RECORD + field, memory.getInt(last * RECORD + field));
+        }
+    }
+
+    @Override
+    public void clear()
+    {
+        size = 0;
+    }
+
+    @Override
+    public int size()
+    {
+        return size;
+    }
+
+    @Override
+    public int getLocation(int slot)
+    {
+        return memory.getInt(slot * RECORD + LOCATION);
+    }
+
+    @Override
+    public void setLocation(int slot, int location)
+    {
+        memory.putInt(slot * RECORD + LOCATION, location);
+    }
+
+    @Override
+    public int getInitialSegment(int slot)
+    {
+        return memory.getInt(slot * RECORD + INITIAL_SEGMENT);
+    }
+
+    @Override
+    public int getDailyCoins(int slot)
+    {
+        return memory.getInt(slot * RECORD + DAILY_COINS);
+    }
+
+    @Override
+    public void addCoins(int slot, int amount)
+    {
+        memory.putInt(slot * RECORD + DAILY_COINS, getDailyCoins(slot) + amount);
+    }
+
+    @Override
+    public void resetDay(int slot)
+    {
+        memory.putInt(slot * RECORD + DAILY_COINS, 0);
+    }
+}
@@ -0,0 +1,172 @@
+import java.io.File;
+
+/**
+ * OffHeapSegmentIndex es la versión fuera del heap de SparseSegmentIndex:
+ * la misma tabla hash con direccionamiento abierto y el mismo árbol de
+ * bits de ubicaciones ocupadas para los recorridos (un OffHeapLocationSet),
+ * pero guardados en bloques OffHeapMemory. Ninguna operación corre datos:
+ * ocupar o vaciar un segmento cuesta lo mismo con pocos o muchos segmentos
+ * ocupados.
+ *
+ * Cada casilla de la tabla es un registro de 8 bytes:
+ *   0  ubicación + 1 (0 marca una casilla libre)
+ *   4  posición guardada
+ * Así un bloque recién creado, lleno de ceros, ya es una tabla vacía.
+ *
+ * @author  SilkRoad
+ * @version 1.0
+ */
+public class OffHeapSegmentIndex implements SegmentIndex
+{
+    private static final int RECORD = 8;
+    private static final int INITIAL_CAPACITY = 1024;   // casillas
+
+    private OffHeapMemory table;
+    private int capacity;       // casillas de la tabla, potencia de dos
+    private int size;
+
+    // Ubicaciones ocupadas, para recorrerlas en orden
+    private OffHeapLocationSet occupied;
+
+    /**
+     * Crea un índice vacío.
+     * @param  tableFile    el archivo donde mapear la tabla, o null para
+     *                      usar memoria directa
+     * @param  occupiedFile el archivo donde mapear las ubicaciones
+     *                      ocupadas, o null para usar memoria directa
+     */
+    public OffHeapSegmentIndex(File tableFile, File occupiedFile)
+    {
+        capacity = INITIAL_CAPACITY;
+        table = new OffHeapMemory(capacity * RECORD, tableFile);
+        occupied = new OffHeapLocationSet(occupiedFile);
+    }
+
+    @Override
+    public int get(int location)
+    {
+        int mask = capacity - 1;
+        for(int i = hash(location) & mask; key(i) != 0; i = (i + 1) & mask) {
+            if(key(i) == location + 1) {
+                return table.getInt(i * RECORD + 4);
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public void set(int location, int slot)
+    {
+        if(location < 0) {
+            throw new IndexOutOfBoundsException("Ubicación inválida: " + location);
+        }
+        if(slot == -1) {
+            remove(location);
+            return;
+        }
+        int mask = capacity - 1;
+        int i = hash(location) & mask;
+        while(key(i) != 0) {
+            if(key(i) == location + 1) {
+                table.putInt(i * RECORD + 4, slot);
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        if(2 * (size + 1) > capacity && (long)capacity * 2 * RECORD > Integer.MAX_VALUE) {
+            throw new IllegalStateException("El índice off-heap no puede guardar más de "
+                                            + size + " segmentos ocupados");
+        }
+        write(i, location + 1, slot);
+        occupied.add(location);
+        size++;
+        if(2 * size > capacity) {
+            resize(capacity * 2);
+        }
+    }
+
+    @Override
+    public int next(int from)
+    {
+        return occupied.next(from);
+    }
+
+    @Override
+    public int last()
+    {
+        return occupied.last();
+    }
+
+    @Override
+    public void clear()
+    {
+        table.clear(capacity * RECORD);
+        size = 0;
+        occupied.clear();
+    }
+
+    private int key(int i)
+    {
+        return table.getInt(i * RECORD);
+    }
+
+    private void write(int i, int key, int slot)
+    {
+        table.putInt(i * RECORD, key);
+        table.putInt(i * RECORD + 4, slot);
+    }
+
+    // Vacía la casilla de la ubicación corriendo hacia atrás las que la siguen
+    private void remove(int location)
+    {
+        int mask = capacity - 1;
+        int i = hash(location) & mask;
+        while(key(i) != location + 1) {
+            if(key(i) == 0) {
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        int gap = i;
+        for(int j = (gap + 1) & mask; key(j) != 0; j = (j + 1) & mask) {
+            int home = hash(key(j) - 1) & mask;
+            // la casilla j puede ocupar el hueco si su casilla ideal no está entre gap y j
+            if(((j - home) & mask) >= ((j - gap) & mask)) {
+                write(gap, key(j), table.getInt(j * RECORD + 4));
+                gap = j;
+            }
+        }
+        write(gap, 0, 0);
+        occupied.remove(location);
+        size--;
+    }
+
+    // Duplica la tabla: copia las casillas a un bloque temporal de memoria
+    // directa y desde ahí las reubica en la tabla agrandada
+    private void resize(int newCapacity)
+    {
+        int oldCapacity = capacity;
+        OffHeapMemory old = new OffHeapMemory(oldCapacity * RECORD, null);
+        table.copyTo(0, old, 0, oldCapacity * RECORD);
+        table.grow(newCapacity * RECORD);
+        table.clear(newCapacity * RECORD);
+        capacity = newCapacity;
+        int mask = capacity - 1;
+        for(int k = 0; k < oldCapacity; k++) {
+            int key = old.getInt(k * RECORD);
+            if(key != 0) {
+                int i = hash(key - 1) & mask;
+                while(key(i) != 0) {
+                    i = (i + 1) & mask;
+                }
+                write(i, key, old.getInt(k * RECORD + 4));
+            }
+        }
+    }
+
+    private static int hash(int location)
+    {
+        int h = location * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,119 @@
+import java.io.File;
+
+/**
+ * OffHeapStoreTable es la StoreTable que guarda sus filas fuera del heap,
+ * en un bloque OffHeapMemory, con un registro de 16 bytes por tienda:
+ *   0   ubicación
+ *   4   monedas
+ *   8   monedas iniciales
+ *   12  veces vaciada
+ *
+ * @author  SilkRoad
+ * @version 1.0
+ */
+public class OffHeapStoreTable implements StoreTable
+{
+    private static final int RECORD = 16;
+    private static final int LOCATION = 0;
+    private static final int COINS = 4;
+    private static final int INITIAL_COINS = 8;
+    private static final int TIMES_EMPTIED = 12;
+
+    private OffHeapMemory memory;
+    private int size;
+
+    /**
+     * Crea una tabla vacía.
+     * @param  file  el archivo donde mapear las filas, o null para usar
+     *               memoria directa
+     */
+    public OffHeapStoreTable(File file)
+    {
+        memory = new OffHeapMemory(64 * RECORD, file);
+    }
+
+    @Override
+    public int add(int location, int tenges)
+    {
+        if((long)(size + 1) * RECORD > Integer.MAX_VALUE) {
+            throw new IllegalStateException("La tabla off-heap no puede guardar más de "
+                                            + size + " tiendas");
+        }
+        memory.ensureCapacity((size + 1) * RECORD);
+        int slot = size++;
+        memory.putInt(slot * RECORD + LOCATION, location);
+        memory.putInt(slot * RECORD + COINS, tenges);
+        memory.putInt(slot * RECORD + INITIAL_COINS, tenges);
+        memory.putInt(slot * RECORD + TIMES_EMPTIED, 0);
+        return slot;
+    }
+
+    @Override
+    public int addCopy(StoreTable source, int slot)
+    {
+        int copy = add(source.getLocation(slot), source.getInitialCoins(slot));
+        memory.putInt(copy * RECORD + COINS, source.getCoins(slot));
+        memory.putInt(copy * RECORD + TIMES_EMPTIED, source.getTimesEmptied(slot));
+        return copy;
+    }
+
+    @Override
+    public void remove(int slot)
+    {
+        int last = --size;
+        for(int field = 0; field < RECORD; field += 4) {
+            memory.putInt(slot * RECORD + field, memory.getInt(last * RECORD + field));
+        }
+    }
+
+    @Override
+    public void clear()
+    {
+        size = 0;
+    }
+
+    @Override
+    public int size()
+    {
+        return size;
+    }
+
+    @Override
+    public int getLocation(int slot)
+    {
+        return memory.getInt(slot * RECORD + LOCATION);
+    }
+
+    @Override
+    public int getCoins(int slot)
+    {
+        return memory.getInt(slot * RECORD + COINS);
+    }
+
+    @Override
+    public void setCoins(int slot, int value)
+    {
+        if(getCoins(slot) != 0 && value == 0) {
+            memory.putInt(slot * RECORD + TIMES_EMPTIED, getTimesEmptied(slot) + 1);
+        }
+        memory.putInt(slot * RECORD + COINS, value);
+    }
+
+    @Override
+    public void restock(int slot)
+    {
+        memory.putInt(slot * RECORD + COINS, getInitialCoins(slot));
+    }
+
+    @Override
+    public int getInitialCoins(int slot)
+    {
+        return memory.getInt(slot * RECORD + INITIAL_COINS);
+    }
+
+    @Override
+    public int getTimesEmptied(int slot)
+    {
+        return memory.getInt(slot * RECORD + TIMES_EMPTIED);
+    }
+}
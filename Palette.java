@@ -0,0 +1,73 @@
+import java.awt.Color;
+import java.util.HashMap;
+
+/**
+ * Paleta de colores que entienden las figuras. Cada color se resuelve una
+ * sola vez a partir de su nombre (al llamar changeColor) y guarda su
+ * java.awt.Color, así el Canvas no compara cadenas ni crea colores al pintar.
+ *
+ * @author  SilkRoad
+ * @version 1.0
+ */
+public enum Palette
+{
+    RED("red", new Color(235, 25, 25)),
+    BLACK("black", Color.black),
+    BLUE("blue", new Color(30, 75, 220)),
+    YELLOW("yellow", new Color(255, 230, 0)),
+    GREEN("green", new Color(80, 160, 60)),
+    MAGENTA("magenta", Color.magenta),
+    WHITE("white", Color.white),
+    BROWN("brown", new Color(229, 217, 182)),
+    TECHO("techo", new Color(78, 59, 49)),
+    ARENA("arena", new Color(216, 184, 99)),
+    GREY("grey", new Color(128, 128, 128)),
+    AZULMETAL("azulmetal", new Color(51, 60, 135)),
+    VERDEMETAL("verdemetal", new Color(28, 84, 45)),
+    LADRILLO("ladrillo", new Color(208, 73, 28)),
+    VERDESITO("verdesito", new Color(189, 236, 182));
+
+    private static final HashMap<String, Palette> BY_NAME = new HashMap<String, Palette>();
+
+    static {
+        for(Palette palette : values()) {
+            BY_NAME.put(palette.name, palette);
+        }
+    }
+
+    private final String name;
+    private final Color color;
+
+    private Palette(String name, Color color)
+    {
+        this.name = name;
+        this.color = color;
+    }
+
+    /**
+     * Busca el color con el nombre dado.
+     * @param  name  nombre del color, por ejemplo "red" o "arena"
+     * @return el color de la paleta, o BLACK si el nombre no existe
+     */
+    public static Palette of(String name)
+    {
+        Palette palette = BY_NAME.get(name);
+        return palette == null ? BLACK : palette;
+    }
+
+    /**
+     * @return el nombre con el que se pidió este color
+     */
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * @return el java.awt.Color ya creado para este color
+     */
+    public Color getColor()
+    {
+        return color;
+    }
+}
@@ -4,6 +4,7 @@ public class ProfitBar {
     private Rectangle progressBar;
     private Rectangle border;
     private boolean isVisible;
+    private Renderer renderer;
     
     // Dimensiones de la barra (más grande y visible)
     private static final int BAR_WIDTH = 400;  // Más larga
@@ -19,30 +20,42 @@ public class ProfitBar {
     private int maxPossibleProfit;
     
     public ProfitBar() {
+        this(Renderer.CANVAS);
+    }
+    
+    /**
+     * Crea la barra dibujándola en el renderer dado
+     * @param renderer Destino de dibujo (Renderer.NONE para modo sin pantalla)
+     */
+    public ProfitBar(Renderer renderer) {
+        this.renderer = renderer;
         currentProfit = 0;
         maxPossibleProfit = 0;
         isVisible = false;
         
-        createBarComponents();
+        createBarComponents(renderer);
     }
     
-    private void createBarComponents() {
+    private void createBarComponents(Renderer renderer) {
         // Borde de la barra (negro) - crear primero para que esté atrás
-        border = new Rectangle();
+        border = new Rectangle(renderer);
+        border.setLayer(Layer.HUD);
         border.changeSize(BAR_HEIGHT + 2 * BORDER_THICKNESS, BAR_WIDTH + 2 * BORDER_THICKNESS);
         border.changeColor("black");
         border.moveHorizontal(BAR_X - BORDER_THICKNESS);
         border.moveVertical(BAR_Y - BORDER_THICKNESS);
         
         // Fondo de la barra (gris claro)
-        background = new Rectangle();
+        background = new Rectangle(renderer);
+        background.setLayer(Layer.HUD);
         background.changeSize(BAR_HEIGHT, BAR_WIDTH);
         background.changeColor("white");
         background.moveHorizontal(BAR_X);
         background.moveVertical(BAR_Y);
         
         // Barra de progreso (verde, inicialmente con ancho 0)
-        progressBar = new Rectangle();
+        progressBar = new Rectangle(renderer);
+        progressBar.setLayer(Layer.HUD);
         progressBar.changeSize(BAR_HEIGHT - 2, 0); // Slightly smaller than background
         progressBar.changeColor("green");
         progressBar.moveHorizontal(BAR_X + 1);
@@ -95,9 +108,14 @@ public class ProfitBar {
      */
     public void makeVisible() {
         if (!isVisible) {
-            border.makeVisible();
-            background.makeVisible();
-            progressBar.makeVisible();
+            renderer.beginBatch();
+            try {
+                border.makeVisible();
+                background.makeVisible();
+                progressBar.makeVisible();
+            } finally {
+                renderer.commitBatch();
+            }
             isVisible = true;
         }
     }
@@ -107,9 +125,14 @@ public class ProfitBar {
      */
     public void makeInvisible() {
         if (isVisible) {
-            border.makeInvisible();
-            background.makeInvisible();
-            progressBar.makeInvisible();
+            renderer.beginBatch();
+            try {
+                border.makeInvisible();
+                background.makeInvisible();
+                progressBar.makeInvisible();
+            } finally {
+                renderer.commitBatch();
+            }
             isVisible = false;
         }
     }
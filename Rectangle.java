@@ -17,18 +17,31 @@ public class Rectangle{
     private int width;
     public int xPosition;
     public int yPosition;
-    private String color;
+    private Palette color;
     private boolean isVisible;
+    private Renderer renderer;
+    private Layer layer;
 
     /**
      * Create a new rectangle at default position with default color.
      */
     public Rectangle(){
+        this(Renderer.CANVAS);
+    }
+
+    /**
+     * Create a new rectangle at default position with default color
+     * that draws itself on the given renderer.
+     * @param renderer where the rectangle is drawn
+     */
+    public Rectangle(Renderer renderer){
+        this.renderer = renderer;
+        layer = Layer.SHAPES;
         height = 30;
         width = 40;
         xPosition =0;
         yPosition =0;
-        color = "magenta";
+        color = Palette.MAGENTA;
         isVisible = false;
     }
     
@@ -114,6 +127,9 @@ public class Rectangle{
         for(int i = 0; i < distance; i++){
             xPosition += delta;
             draw();
+            if(isVisible) {
+                renderer.wait(10);
+            }
         }
     }
 
@@ -134,6 +150,9 @@ public class Rectangle{
         for(int i = 0; i < distance; i++){
             yPosition += delta;
             draw();
+            if(isVisible) {
+                renderer.wait(10);
+            }
         }
     }
 
@@ -149,13 +168,24 @@ public class Rectangle{
         draw();
     }
     
+    /**
+     * Change the drawing layer. Shapes in later layers are always drawn
+     * on top of shapes in earlier layers.
+     * @param newLayer the new layer
+     */
+    public void setLayer(Layer newLayer){
+        erase();
+        layer = newLayer;
+        draw();
+    }
+
     /**
      * Change the color. 
      * @param color the new color. Valid colors are "red", "yellow", "blue", "green",
      * "magenta" and "black".
      */
     public void changeColor(String newColor){
-        color = newColor;
+        color = Palette.of(newColor);
         draw();
     }
 
@@ -164,12 +194,10 @@ public class Rectangle{
      */
 
     private void draw() {
-        if(isVisible) {
-            Canvas canvas = Canvas.getCanvas();
-            canvas.draw(this, color,
+        if(isVisible && !renderer.isHeadless()) {
+            renderer.draw(this, layer, color,
                 new java.awt.Rectangle(xPosition, yPosition, 
                                        width, height));
-            canvas.wait(10);
         }
     }
 
@@ -178,8 +206,7 @@ public class Rectangle{
      */
     private void erase(){
         if(isVisible) {
-            Canvas canvas = Canvas.getCanvas();
-            canvas.erase(this);
+            renderer.erase(this);
         }
     }
 }
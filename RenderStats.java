@@ -0,0 +1,152 @@
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * RenderStats cuenta lo que hace el hilo de dibujo de un Canvas: cuántos
+ * cuadros y regiones pinta, cuántas figuras rellena, cuánto tarda cada
+ * cuadro (en un histograma) y cuánto trabajo esperaba en cola. El costo
+ * de cada cuadro se carga también a las operaciones de la simulación que
+ * causaron sus cambios (ver Renderer.setOperation), para saber cuánto
+ * cuesta dibujar un placeStore o un moveRobots.
+ *
+ * Todos los métodos están sincronizados: el hilo de dibujo escribe y
+ * cualquier hilo (por ejemplo JMX) lee.
+ *
+ * @author  SilkRoad
+ * @version 1.0
+ */
+public class RenderStats implements RenderStatsMBean
+{
+    // Límites superiores de las cubetas del histograma; la última cubeta no tiene límite
+    private static final long[] BUCKET_MILLIS = {1, 2, 4, 8, 16, 32, 64};
+
+    private long frames;
+    private long redraws;
+    private long shapesFilled;
+    private long totalNanos;
+    private int lastQueueDepth;
+    private int maxQueueDepth;
+    private long[] histogram;
+    private TreeMap<String, long[]> operations;  // {cuadros, nanos, figuras}
+
+    /**
+     * Crea estadísticas en cero.
+     */
+    public RenderStats()
+    {
+        reset();
+    }
+
+    /**
+     * Registra un cuadro pintado.
+     * @param  regions     regiones repintadas en el cuadro
+     * @param  shapes      figuras rellenadas en el cuadro
+     * @param  nanos       duración del cuadro
+     * @param  queueDepth  trabajo que esperaba al empezar: cambios marcados
+     *                     desde el cuadro anterior, antes de fusionar sus
+     *                     áreas, más animaciones en curso
+     * @param  causes      operaciones cuyos cambios se pintaron en el cuadro
+     */
+    public synchronized void recordFrame(int regions, int shapes, long nanos, int queueDepth,
+                                         Collection<String> causes)
+    {
+        frames++;
+        redraws += regions;
+        shapesFilled += shapes;
+        totalNanos += nanos;
+        lastQueueDepth = queueDepth;
+        maxQueueDepth = Math.max(maxQueueDepth, queueDepth);
+        int bucket = 0;
+        while(bucket < BUCKET_MILLIS.length && nanos >= BUCKET_MILLIS[bucket] * 1000000L) {
+            bucket++;
+        }
+        histogram[bucket]++;
+        for(String cause : causes) {
+            long[] cost = operations.get(cause);
+            if(cost == null) {
+                cost = new long[3];
+                operations.put(cause, cost);
+            }
+            cost[0]++;
+            cost[1] += nanos;
+            cost[2] += shapes;
+        }
+    }
+
+    public synchronized long getFrameCount()
+    {
+        return frames;
+    }
+
+    public synchronized long getRedrawCount()
+    {
+        return redraws;
+    }
+
+    public synchronized long getShapesFilled()
+    {
+        return shapesFilled;
+    }
+
+    public synchronized double getAverageShapesPerRedraw()
+    {
+        return redraws == 0 ? 0 : shapesFilled / (double)redraws;
+    }
+
+    public synchronized double getAverageFrameMillis()
+    {
+        return frames == 0 ? 0 : totalNanos / 1e6 / frames;
+    }
+
+    public synchronized int getLastQueueDepth()
+    {
+        return lastQueueDepth;
+    }
+
+    public synchronized int getMaxQueueDepth()
+    {
+        return maxQueueDepth;
+    }
+
+    public long[] getHistogramBucketMillis()
+    {
+        return BUCKET_MILLIS.clone();
+    }
+
+    public synchronized long[] getFrameDurationHistogram()
+    {
+        return histogram.clone();
+    }
+
+    public synchronized String[] getOperationSummary()
+    {
+        String[] summary = new String[operations.size()];
+        int i = 0;
+        for(Map.Entry<String, long[]> entry : operations.entrySet()) {
+            long[] cost = entry.getValue();
+            summary[i++] = String.format("%s: cuadros=%d ms=%.3f figuras=%d",
+                                         entry.getKey(), cost[0], cost[1] / 1e6, cost[2]);
+        }
+        return summary;
+    }
+
+    public synchronized void reset()
+    {
+        frames = 0;
+        redraws = 0;
+        shapesFilled = 0;
+        totalNanos = 0;
+        lastQueueDepth = 0;
+        maxQueueDepth = 0;
+        histogram = new long[BUCKET_MILLIS.length + 1];
+        operations = new TreeMap<String, long[]>();
+    }
+
+    public synchronized String toString()
+    {
+        return String.format("cuadros=%d regiones=%d figuras=%d promedio=%.3fms cola=%d (max %d)",
+                             frames, redraws, shapesFilled, getAverageFrameMillis(),
+                             lastQueueDepth, maxQueueDepth);
+    }
+}
@@ -0,0 +1,43 @@
+/**
+ * Interfaz de administración (JMX) de RenderStats. Con Canvas.registerStats
+ * las estadísticas de un Canvas quedan visibles en jconsole o en cualquier
+ * cliente JMX bajo el dominio SilkRoad.
+ *
+ * @author  SilkRoad
+ * @version 1.0
+ */
+public interface RenderStatsMBean
+{
+    /** @return cuadros pintados (cada uno puede repintar varias regiones) */
+    long getFrameCount();
+
+    /** @return regiones repintadas */
+    long getRedrawCount();
+
+    /** @return figuras y sprites rellenados en total */
+    long getShapesFilled();
+
+    /** @return promedio de figuras rellenadas por región repintada */
+    double getAverageShapesPerRedraw();
+
+    /** @return promedio de milisegundos por cuadro */
+    double getAverageFrameMillis();
+
+    /** @return cambios y animaciones en cola al empezar el último cuadro */
+    int getLastQueueDepth();
+
+    /** @return máximo de cambios y animaciones en cola al empezar un cuadro */
+    int getMaxQueueDepth();
+
+    /** @return límites superiores (en milisegundos) de cada cubeta del histograma */
+    long[] getHistogramBucketMillis();
+
+    /** @return cuadros por cubeta de duración; la última cuenta los más lentos */
+    long[] getFrameDurationHistogram();
+
+    /** @return una línea por operación: cuadros, milisegundos y figuras que causó */
+    String[] getOperationSummary();
+
+    /** Vuelve todos los contadores a cero. */
+    void reset();
+}
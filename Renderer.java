@@ -0,0 +1,208 @@
+import java.awt.Shape;
+
+/**
+ * Renderer es el destino donde las figuras se dibujan. Permite escoger al
+ * construir la simulación si se dibuja en el Canvas o si se ejecuta sin
+ * pantalla (por ejemplo new SilkRoad(length, Renderer.NONE)).
+ *
+ * @author  SilkRoad
+ * @version 1.0
+ */
+public interface Renderer
+{
+    /**
+     * Renderer sin pantalla: ignora todas las operaciones de dibujo y no
+     * espera entre figuras, así la simulación corre a velocidad de cómputo.
+     */
+    Renderer NONE = new Renderer()
+    {
+        public void draw(Object referenceObject, Layer layer, Palette color, Shape shape)
+        {
+        }
+
+        public void drawSprite(Object referenceObject, Layer layer, Sprite sprite, int x, int y)
+        {
+        }
+
+        public void animateSprite(Object referenceObject, Layer layer, Sprite sprite,
+                                  int[] xs, int[] ys)
+        {
+        }
+
+        public void drawRoad(Road road)
+        {
+        }
+
+        public void erase(Object referenceObject)
+        {
+        }
+
+        public void wait(int milliseconds)
+        {
+        }
+
+        public void beginBatch()
+        {
+        }
+
+        public void commitBatch()
+        {
+        }
+
+        public void setDensityMap(DensityMap densityMap)
+        {
+        }
+
+        public void setOperation(String name)
+        {
+        }
+
+        public boolean isHeadless()
+        {
+            return true;
+        }
+    };
+
+    /**
+     * Renderer por defecto: dibuja en el Canvas compartido.
+     */
+    Renderer CANVAS = new Renderer()
+    {
+        public void draw(Object referenceObject, Layer layer, Palette color, Shape shape)
+        {
+            Canvas.getCanvas().draw(referenceObject, layer, color, shape);
+        }
+
+        public void drawSprite(Object referenceObject, Layer layer, Sprite sprite, int x, int y)
+        {
+            Canvas.getCanvas().drawSprite(referenceObject, layer, sprite, x, y);
+        }
+
+        public void animateSprite(Object referenceObject, Layer layer, Sprite sprite,
+                                  int[] xs, int[] ys)
+        {
+            Canvas.getCanvas().animateSprite(referenceObject, layer, sprite, xs, ys);
+        }
+
+        public void drawRoad(Road road)
+        {
+            Canvas.getCanvas().drawRoad(road);
+        }
+
+        public void erase(Object referenceObject)
+        {
+            Canvas.getCanvas().erase(referenceObject);
+        }
+
+        public void wait(int milliseconds)
+        {
+            Canvas.getCanvas().wait(milliseconds);
+        }
+
+        public void beginBatch()
+        {
+            Canvas.getCanvas().beginBatch();
+        }
+
+        public void commitBatch()
+        {
+            Canvas.getCanvas().commitBatch();
+        }
+
+        public void setDensityMap(DensityMap densityMap)
+        {
+            Canvas.getCanvas().setDensityMap(densityMap);
+        }
+
+        public void setOperation(String name)
+        {
+            Canvas.getCanvas().setOperation(name);
+        }
+
+        public boolean isHeadless()
+        {
+            return false;
+        }
+    };
+
+    /**
+     * Dibuja la figura dada encima de las demás figuras de su capa.
+     * @param  referenceObject  un objeto para definir identidad para esta figura
+     * @param  layer            la capa donde se dibuja la figura
+     * @param  color            el color de la figura, ya resuelto en la paleta
+     * @param  shape            un objeto que define la figura a dibujar
+     */
+    void draw(Object referenceObject, Layer layer, Palette color, Shape shape);
+
+    /**
+     * Dibuja un sprite (varias figuras ya rasterizadas) como una sola imagen,
+     * encima de las demás figuras de su capa.
+     * @param  referenceObject  un objeto para definir identidad para este sprite
+     * @param  layer            la capa donde se dibuja
+     * @param  sprite           el sprite a dibujar
+     * @param  x                posición horizontal del origen del sprite
+     * @param  y                posición vertical del origen del sprite
+     */
+    void drawSprite(Object referenceObject, Layer layer, Sprite sprite, int x, int y);
+
+    /**
+     * Dibuja un sprite que recorre un camino sin bloquear a quien llama: el
+     * recorrido avanza solo, cuadro a cuadro, hasta el último punto.
+     * @param  referenceObject  un objeto para definir identidad para este sprite
+     * @param  layer            la capa donde se dibuja
+     * @param  sprite           el sprite a dibujar
+     * @param  xs               posiciones horizontales del origen en cada punto del camino
+     * @param  ys               posiciones verticales del origen en cada punto del camino
+     */
+    void animateSprite(Object referenceObject, Layer layer, Sprite sprite, int[] xs, int[] ys);
+
+    /**
+     * Dibuja la carretera dada debajo de todas las figuras. Solo se pinta la
+     * parte que cae en la vista; se borra con erase(road).
+     * @param  road  la carretera
+     */
+    void drawRoad(Road road);
+
+    /**
+     * Borra la figura dada.
+     * @param  referenceObject  el objeto forma que será borrado
+     */
+    void erase(Object referenceObject);
+
+    /**
+     * Espera un número específico de milisegundos antes de finalizar.
+     * @param  milliseconds  el número de millisegundos a esperar
+     */
+    void wait(int milliseconds);
+
+    /**
+     * Inicia un lote de cambios: los draw/erase siguientes no se pintan
+     * hasta el commitBatch correspondiente. Los lotes se pueden anidar.
+     */
+    void beginBatch();
+
+    /**
+     * Cierra el lote abierto por beginBatch. Al cerrar el lote más externo
+     * todos los cambios se pintan juntos en un solo repintado.
+     */
+    void commitBatch();
+
+    /**
+     * Indica el mapa de densidad que se dibuja en lugar de la carretera, las
+     * tiendas y los robots cuando la vista está muy alejada.
+     * @param  densityMap  el mapa, o null para no usar mapa de calor
+     */
+    void setDensityMap(DensityMap densityMap);
+
+    /**
+     * Indica qué operación de la simulación causa los cambios siguientes,
+     * para medir cuánto cuesta dibujar cada una.
+     * @param  name  nombre de la operación, por ejemplo "placeStore"
+     */
+    void setOperation(String name);
+
+    /**
+     * @return true si este renderer no dibuja nada (modo sin pantalla)
+     */
+    boolean isHeadless();
+}
@@ -1,12 +1,20 @@
+import java.awt.Graphics2D;
 import java.awt.Point;
-import java.util.ArrayList;
 
+/**
+ * La carretera es una espiral cuadrada: desde el centro avanza 1 a la
+ * derecha, 1 abajo, 2 a la izquierda, 2 arriba, 3 a la derecha... y tiene un
+ * cuadro por metro. La posición de cada cuadro se calcula con una fórmula
+ * cerrada (y al revés, el cuadro de cada posición), así la carretera no
+ * guarda nada por metro: crear una de 10.000.000 metros cuesta lo mismo que
+ * una de 10. Al hacerla visible el Canvas le pide pintar solo los cuadros
+ * que caen en la vista.
+ */
 public class Road {
     private int length;
     private boolean isVisible;
-    private ArrayList<Rectangle> roadSegments;
-    private ArrayList<Point> segmentPositions;  // posiciones reales de cada cuadrito
-    
+    private Renderer renderer;
+
     // --- CONSTANTES DE ESCALA ---
     private static final int CELL_SIZE = 50;   // Tamaño del cuadro amarillo
     private static final int CELL_GAP = 65;    // Distancia entre cuadros
@@ -14,117 +22,73 @@ public class Road {
     private static final int LINE_THICKNESS = CELL_SIZE / 15; // Grosor relativo de líneas
 
     public Road(int length) {
+        this(length, Renderer.CANVAS);
+    }
+
+    public Road(int length, Renderer renderer) {
         if (length <= 0) {
             throw new IllegalArgumentException("La longitud debe ser mayor que 0");
         }
         this.length = length;
         this.isVisible = false;
-        this.roadSegments = new ArrayList<Rectangle>();
-        this.segmentPositions = new ArrayList<Point>();
-        createRoadPath();
+        this.renderer = renderer;
     }
 
-    private void createRoadPath() {
-        roadSegments.clear();
-        segmentPositions.clear(); // limpiar también posiciones
-
-        int segmentsNeeded = length;  // NUEVO: 1 segmento por metro 
-        int segmentsCreated = 0;
-
-        int x = 0;
-        int y = 0;
-        int previousX = 0;
-        int previousY = 0;
-
-        createSegmentAt(x, y);
-        segmentsCreated++;
-
-        int pasos = 1;
-
-        while (segmentsCreated < segmentsNeeded) {
-            // DERECHA
-            for (int i = 0; i < pasos && segmentsCreated < segmentsNeeded; i++) {
-                previousX = x;
-                previousY = y;
-                x++;
-                createStraightLine(previousX, previousY, x, y);
-                createSegmentAt(x, y);
-                segmentsCreated++;
-            }
-
-            // ABAJO
-            for (int i = 0; i < pasos && segmentsCreated < segmentsNeeded; i++) {
-                previousX = x;
-                previousY = y;
-                y++;
-                createStraightLine(previousX, previousY, x, y);
-                createSegmentAt(x, y);
-                segmentsCreated++;
-            }
-
-            pasos++;
-
-            // IZQUIERDA
-            for (int i = 0; i < pasos && segmentsCreated < segmentsNeeded; i++) {
-                previousX = x;
-                previousY = y;
-                x--;
-                createStraightLine(previousX, previousY, x, y);
-                createSegmentAt(x, y);
-                segmentsCreated++;
-            }
+    // =============================
+    //     GEOMETRÍA DE LA ESPIRAL
+    // =============================
+    // Los primeros s*s cuadros forman un cuadrado de lado s; el cuadrado de
+    // lado s se completa con un "anillo" en L de 2s-1 cuadros. Con s par el
+    // anillo baja por la columna derecha y sigue a la izquierda por la fila
+    // de abajo; con s impar sube por la columna izquierda y sigue a la
+    // derecha por la fila de arriba.
+
+    // Lado del menor cuadrado que contiene el cuadro de índice dado
+    private static int sideOf(long index) {
+        int side = (int) Math.sqrt((double) index) + 1;
+        while ((long) (side - 1) * (side - 1) > index) side--;
+        while ((long) side * side <= index) side++;
+        return side;
+    }
 
-            // ARRIBA
-            for (int i = 0; i < pasos && segmentsCreated < segmentsNeeded; i++) {
-                previousX = x;
-                previousY = y;
-                y--;
-                createStraightLine(previousX, previousY, x, y);
-                createSegmentAt(x, y);
-                segmentsCreated++;
-            }
+    // Lado del menor cuadrado que contiene la coordenada de la grilla dada
+    private static int sideOfCoordinate(int c) {
+        return c > 0 ? 2 * c : 1 - 2 * c;
+    }
 
-            pasos++;
+    // Coordenada de la grilla (x, y) del cuadro de índice dado
+    private static int gridX(long index) {
+        int side = sideOf(index);
+        int k = (int) (index - (long) (side - 1) * (side - 1));
+        if (side % 2 == 0) {
+            int h = side / 2;
+            return k < side ? h : h - 1 - (k - side);
         }
+        int h = (side - 1) / 2;
+        return k < side ? -h : -h + 1 + (k - side);
     }
 
-    private void createSegmentAt(int gridX, int gridY) {
-        Rectangle segment = new Rectangle();
-        segment.changeSize(CELL_SIZE, CELL_SIZE);
-        segment.changeColor("arena");
-
-        int pixelX = gridX * CELL_GAP + OFFSET;
-        int pixelY = gridY * CELL_GAP + OFFSET;
-
-        segment.moveHorizontal(pixelX);
-        segment.moveVertical(pixelY);
-
-        roadSegments.add(segment);
-        segmentPositions.add(new Point(pixelX, pixelY)); // Guardar posición
+    private static int gridY(long index) {
+        int side = sideOf(index);
+        int k = (int) (index - (long) (side - 1) * (side - 1));
+        if (side % 2 == 0) {
+            int h = side / 2;
+            return k < side ? -(h - 1) + k : h;
+        }
+        int h = (side - 1) / 2;
+        return k < side ? h - k : -h;
     }
 
-    private void createStraightLine(int fromX, int fromY, int toX, int toY) {
-        Rectangle line = new Rectangle();
-
-        int fromPixelX = fromX * CELL_GAP + OFFSET + CELL_SIZE / 2;
-        int fromPixelY = fromY * CELL_GAP + OFFSET + CELL_SIZE / 2;
-        int toPixelX   = toX   * CELL_GAP + OFFSET + CELL_SIZE / 2;
-        int toPixelY   = toY   * CELL_GAP + OFFSET + CELL_SIZE / 2;
-
-        if (fromY == toY) {
-            line.changeSize(LINE_THICKNESS, CELL_GAP);
-            int centerX = (fromPixelX + toPixelX) / 2;
-            line.moveHorizontal(centerX - CELL_GAP / 2);
-            line.moveVertical(fromPixelY - LINE_THICKNESS / 2);
-        } else {
-            line.changeSize(CELL_GAP, LINE_THICKNESS);
-            int centerY = (fromPixelY + toPixelY) / 2;
-            line.moveHorizontal(fromPixelX - LINE_THICKNESS / 2);
-            line.moveVertical(centerY - CELL_GAP / 2);
+    // Índice del cuadro en la coordenada de la grilla dada (puede pasar del largo)
+    private static long indexAt(int gx, int gy) {
+        int side = Math.max(sideOfCoordinate(gx), sideOfCoordinate(gy));
+        long first = (long) (side - 1) * (side - 1);
+        if (side % 2 == 0) {
+            int h = side / 2;
+            return gx == h ? first + gy + h - 1 : first + side + (h - 1 - gx);
         }
-
-        line.changeColor("black");
-        roadSegments.add(line);
+        int h = (side - 1) / 2;
+        return gx == -h ? first + h - gy : first + side + gx + h - 1;
     }
 
     public int getLength() {
@@ -142,16 +106,14 @@ public class Road {
     }
 
     private void draw() {
-        if (isVisible) {
-            for (Rectangle segment : roadSegments) {
-                segment.makeVisible();
-            }
+        if (isVisible && !renderer.isHeadless()) {
+            renderer.drawRoad(this);
         }
     }
 
     private void erase() {
-        for (Rectangle segment : roadSegments) {
-            segment.makeInvisible();
+        if (isVisible) {
+            renderer.erase(this);
         }
     }
 
@@ -160,14 +122,133 @@ public class Road {
     }
 
     public int getSegmentCount() {
-        return segmentPositions.size();
+        return length;
     }
 
     // Obtener coordenadas de un segmento
     public Point getSegmentPosition(int index) {
-        if (index >= 0 && index < segmentPositions.size()) {
-            return segmentPositions.get(index);
+        if (index >= 0 && index < length) {
+            return new Point(gridX(index) * CELL_GAP + OFFSET, gridY(index) * CELL_GAP + OFFSET);
         }
         return null;
     }
-}
\ No newline at end of file
+
+    /**
+     * Inversa de getSegmentPosition: el segmento cuyo cuadro contiene el punto.
+     * @param  position  un punto del mundo, en pixeles
+     * @return el índice del segmento, o -1 si el punto no cae en ningún cuadro
+     */
+    public int getSegmentIndex(Point position) {
+        int gx = Math.floorDiv(position.x - OFFSET, CELL_GAP);
+        int gy = Math.floorDiv(position.y - OFFSET, CELL_GAP);
+        if (position.x - OFFSET - gx * CELL_GAP >= CELL_SIZE
+            || position.y - OFFSET - gy * CELL_GAP >= CELL_SIZE) {
+            return -1; // entre dos cuadros
+        }
+        long index = indexAt(gx, gy);
+        return index < length ? (int) index : -1;
+    }
+
+    // =============================
+    //     PINTAR (lo llama el Canvas)
+    // =============================
+
+    /**
+     * Pinta los cuadros, y la línea hacia el cuadro siguiente, que tocan el
+     * área dada. Cada línea va desde el centro de su cuadro hasta el borde del
+     * siguiente, así el resultado no depende del orden en que se pinten.
+     * @param  target  dónde se pinta, en coordenadas del mundo
+     * @param  area    el área del mundo a pintar
+     * @return cuántos cuadros se pintaron
+     */
+    public int paint(Graphics2D target, java.awt.Rectangle area) {
+        // Limitar la búsqueda a la grilla que ocupa la carretera
+        int side = sideOf(length - 1);
+        int low = -((side - 1) / 2);
+        int high = side / 2;
+        int firstX = Math.max(low, Math.floorDiv(area.x - OFFSET - CELL_SIZE, CELL_GAP));
+        int lastX = Math.min(high, Math.floorDiv(area.x + area.width - OFFSET, CELL_GAP) + 1);
+        int firstY = Math.max(low, Math.floorDiv(area.y - OFFSET - CELL_SIZE, CELL_GAP));
+        int lastY = Math.min(high, Math.floorDiv(area.y + area.height - OFFSET, CELL_GAP) + 1);
+        int painted = 0;
+        for (int gx = firstX; gx <= lastX; gx++) {
+            for (int gy = firstY; gy <= lastY; gy++) {
+                long index = indexAt(gx, gy);
+                if (index >= length) {
+                    continue;
+                }
+                int pixelX = gx * CELL_GAP + OFFSET;
+                int pixelY = gy * CELL_GAP + OFFSET;
+                target.setColor(Palette.ARENA.getColor());
+                target.fillRect(pixelX, pixelY, CELL_SIZE, CELL_SIZE);
+                if (index + 1 < length) {
+                    paintLine(target, gx, gy, gridX(index + 1), gridY(index + 1));
+                }
+                painted++;
+            }
+        }
+        return painted;
+    }
+
+    /**
+     * Pinta, sin detalle, el área que ocupa la carretera: el cuadrado
+     * completo de la espiral y lo que va del último anillo. Cuesta lo mismo
+     * sin importar el largo; el Canvas la usa con la vista muy alejada.
+     * @param  target  dónde se pinta, en coordenadas del mundo
+     */
+    public void paintOutline(Graphics2D target) {
+        target.setColor(Palette.ARENA.getColor());
+        int side = sideOf(length - 1);
+        int full = side - 1;            // lado del cuadrado completo
+        if (full > 0) {
+            fillCells(target, -((full - 1) / 2), -((full - 1) / 2), full / 2, full / 2);
+        }
+        long first = (long) full * full;
+        long last = length - 1;
+        // El anillo incompleto: su columna y, si llega, parte de su fila
+        long columnEnd = Math.min(last, first + side - 1);
+        fillCells(target, gridX(first), Math.min(gridY(first), gridY(columnEnd)),
+                  gridX(first), Math.max(gridY(first), gridY(columnEnd)));
+        if (last > columnEnd) {
+            fillCells(target, Math.min(gridX(columnEnd + 1), gridX(last)), gridY(last),
+                      Math.max(gridX(columnEnd + 1), gridX(last)), gridY(last));
+        }
+    }
+
+    // Rellena el rectángulo que cubren los cuadros de (x0, y0) a (x1, y1) de la grilla
+    private static void fillCells(Graphics2D target, int x0, int y0, int x1, int y1) {
+        target.fillRect(x0 * CELL_GAP + OFFSET, y0 * CELL_GAP + OFFSET,
+                        (x1 - x0) * CELL_GAP + CELL_SIZE, (y1 - y0) * CELL_GAP + CELL_SIZE);
+    }
+
+    // Pinta la línea del centro del cuadro (fromX, fromY) al borde del cuadro vecino
+    private static void paintLine(Graphics2D target, int fromX, int fromY, int toX, int toY) {
+        int fromPixelX = fromX * CELL_GAP + OFFSET + CELL_SIZE / 2;
+        int fromPixelY = fromY * CELL_GAP + OFFSET + CELL_SIZE / 2;
+        int toPixelX   = toX   * CELL_GAP + OFFSET + CELL_SIZE / 2;
+        int toPixelY   = toY   * CELL_GAP + OFFSET + CELL_SIZE / 2;
+        int toCellX = toX * CELL_GAP + OFFSET;
+        int toCellY = toY * CELL_GAP + OFFSET;
+
+        target.setColor(Palette.BLACK.getColor());
+        if (fromY == toY) {
+            int left = (fromPixelX + toPixelX) / 2 - CELL_GAP / 2;
+            int right = left + CELL_GAP;
+            if (toX > fromX) {
+                right = Math.min(right, toCellX);
+            } else {
+                left = Math.max(left, toCellX + CELL_SIZE);
+            }
+            target.fillRect(left, fromPixelY - LINE_THICKNESS / 2, right - left, LINE_THICKNESS);
+        } else {
+            int top = (fromPixelY + toPixelY) / 2 - CELL_GAP / 2;
+            int bottom = top + CELL_GAP;
+            if (toY > fromY) {
+                bottom = Math.min(bottom, toCellY);
+            } else {
+                top = Math.max(top, toCellY + CELL_SIZE);
+            }
+            target.fillRect(fromPixelX - LINE_THICKNESS / 2, top, LINE_THICKNESS, bottom - top);
+        }
+    }
+}
@@ -1,13 +1,18 @@
+import java.awt.geom.Ellipse2D;
+import java.util.HashMap;
+
 public class Robot {
-    private Circle head;
-    private Rectangle body;
-    private Rectangle leftLeg, rightLeg;
     private boolean isVisible;
+    private Renderer renderer;
     private int x, y; // posición actual del cuerpo
-    private int initialSegment; // segmento donde nació
-    private int dailyCoins;     // monedas recolectadas en el día actual
     private String color;       // color del robot
     
+    // Segmento donde nació y monedas recolectadas en el día: viven en una
+    // fila de la tabla de robots (la de SilkRoad, o una propia si el robot
+    // se creó suelto)
+    private RobotTable table;
+    private int slot;
+    
     // Array de colores disponibles para los robots
     private static final String[] ROBOT_COLORS = {
         "grey", "azulmetal", "verdemetal"};
@@ -15,6 +20,9 @@ public class Robot {
     // Contador estático para asignar colores secuencialmente
     private static int colorIndex = 0;
     
+    // Sprites ya construidos, uno por color (cabeza, cuerpo y piernas en una sola imagen)
+    private static final HashMap<String, Sprite> SPRITES = new HashMap<>();
+    
     // Tamaños estándar
     private int headSize = 15;
     private int bodyHeight = 20;
@@ -23,51 +31,61 @@ public class Robot {
     private int legWidth = 4;
     
     public Robot(int x, int y, int initialSegment) {
+        this(x, y, initialSegment, Renderer.CANVAS);
+    }
+    
+    /**
+     * Crea un robot que se dibuja en el renderer dado
+     */
+    public Robot(int x, int y, int initialSegment, Renderer renderer) {
+        this(x, y, singleRow(initialSegment), 0, renderer);
+    }
+    
+    /**
+     * Crea el robot que dibuja la fila slot de la tabla de SilkRoad
+     */
+    Robot(int x, int y, RobotTable table, int slot, Renderer renderer) {
+        this.renderer = renderer;
         this.x = x;
         this.y = y;
-        this.initialSegment = initialSegment;
-        this.dailyCoins = 0;
+        this.table = table;
+        this.slot = slot;
         
         // Asignar color automáticamente
         this.color = getNextColor();
         
-        // Cuerpo
-        body = new Rectangle();
-        body.changeSize(bodyHeight, bodyWidth);
-        body.changeColor(color);
-        body.moveHorizontal(x);
-        body.moveVertical(y);
-        
-        // Cabeza
-        head = new Circle();
-        head.changeSize(headSize);
-        head.changeColor(color);
-        int headX = x + (bodyWidth / 2) - (headSize / 2);
-        int headY = y - headSize;
-        head.moveHorizontal(headX);
-        head.moveVertical(headY);
-        
-        // Piernas
-        leftLeg = new Rectangle();
-        leftLeg.changeSize(legHeight, legWidth);
-        leftLeg.changeColor(color);
-        leftLeg.moveHorizontal(x + 2);
-        leftLeg.moveVertical(y + bodyHeight);
-        
-        rightLeg = new Rectangle();
-        rightLeg.changeSize(legHeight, legWidth);
-        rightLeg.changeColor(color);
-        rightLeg.moveHorizontal(x + bodyWidth - legWidth - 3);
-        rightLeg.moveVertical(y + bodyHeight);
-        
         isVisible = false;
 
     }
     
+    private static RobotTable singleRow(int initialSegment) {
+        RobotTable table = new HeapRobotTable();
+        table.add(initialSegment);
+        return table;
+    }
+    
+    /**
+     * Cambia la fila de la tabla que lee este robot (SilkRoad la mueve al
+     * llenar el hueco de un robot quitado)
+     */
+    void setSlot(int slot) {
+        this.slot = slot;
+    }
+    
+    /**
+     * Copia su fila a una tabla propia; se usa al quitar el robot de
+     * SilkRoad, antes de que otro robot ocupe su fila
+     */
+    void detach() {
+        RobotTable own = new HeapRobotTable();
+        slot = own.addCopy(table, slot);
+        table = own;
+    }
+    
     /**
      * Obtiene el siguiente color disponible de forma cíclica
      */
-    private static String getNextColor() {
+    private static synchronized String getNextColor() {
         String selectedColor = ROBOT_COLORS[colorIndex];
         colorIndex = (colorIndex + 1) % ROBOT_COLORS.length;
         return selectedColor;
@@ -76,63 +94,103 @@ public class Robot {
     /**
      * Reinicia el contador de colores (útil al reiniciar el juego)
      */
-    public static void resetColorIndex() {
+    public static synchronized void resetColorIndex() {
         colorIndex = 0;
     }
     
+    /**
+     * Obtiene el sprite del color de este robot, construyéndolo solo la
+     * primera vez que se pide ese color
+     */
+    private Sprite getSprite() {
+        synchronized (SPRITES) {
+            Sprite sprite = SPRITES.get(color);
+            if (sprite == null) {
+                Palette palette = Palette.of(color);
+                sprite = new Sprite();
+                // Cabeza
+                sprite.add(palette, new Ellipse2D.Double((bodyWidth / 2) - (headSize / 2), -headSize,
+                                                         headSize, headSize));
+                // Cuerpo
+                sprite.add(palette, new java.awt.Rectangle(0, 0, bodyWidth, bodyHeight));
+                // Piernas
+                sprite.add(palette, new java.awt.Rectangle(2, bodyHeight, legWidth, legHeight));
+                sprite.add(palette, new java.awt.Rectangle(bodyWidth - legWidth - 3, bodyHeight,
+                                                           legWidth, legHeight));
+                SPRITES.put(color, sprite);
+            }
+            return sprite;
+        }
+    }
+    
     // ---- Dibujar ----
     public void makeVisible() {
         isVisible = true;
-        head.makeVisible();
-        body.makeVisible();
-        leftLeg.makeVisible();
-        rightLeg.makeVisible();
+        draw();
     }
     
     public void makeInvisible() {
-        head.makeInvisible();
-        body.makeInvisible();
-        leftLeg.makeInvisible();
-        rightLeg.makeInvisible();
+        if (isVisible) {
+            renderer.erase(this);
+        }
         isVisible = false;
     }
     
+    private void draw() {
+        if (isVisible && !renderer.isHeadless()) {
+            renderer.drawSprite(this, Layer.ROBOTS, getSprite(), x, y);
+        }
+    }
+    
+    /**
+     * @return true si el robot se está mostrando
+     */
+    boolean isVisible() {
+        return isVisible;
+    }
+    
     // ---- Movimiento ----
     public void moveHorizontal(int distance) {
-        head.moveHorizontal(distance);
-        body.moveHorizontal(distance);
-        leftLeg.moveHorizontal(distance);
-        rightLeg.moveHorizontal(distance);
         x += distance;
+        draw();
     }
     
     public void moveVertical(int distance) {
-        head.moveVertical(distance);
-        body.moveVertical(distance);
-        leftLeg.moveVertical(distance);
-        rightLeg.moveVertical(distance);
         y += distance;
+        draw();
     }
     
     public void moveTo(int newX, int newY) {
-        int dx = newX - x;
-        int dy = newY - y;
-        moveHorizontal(dx);
-        moveVertical(dy);
+        x = newX;
+        y = newY;
+        draw();
+    }
+    
+    /**
+     * Mueve el robot al último punto del camino. La posición cambia de
+     * inmediato; en pantalla el robot recorre el camino punto a punto sin
+     * que quien llama tenga que esperar
+     */
+    public void moveAlong(int[] xs, int[] ys) {
+        x = xs[xs.length - 1];
+        y = ys[ys.length - 1];
+        if (isVisible && !renderer.isHeadless()) {
+            renderer.animateSprite(this, Layer.ROBOTS, getSprite(), xs, ys);
+        }
     }
     
     // ---- Monedas (SIN LÍMITE) ----
     public void resetDay() {
-        dailyCoins = 0;
+        table.resetDay(slot);
     }
     
     public int getDailyCoins() { 
-        return dailyCoins; 
+        return table.getDailyCoins(slot); 
     }
     
     public void addCoins(int amount) {
         // ELIMINADO el límite de 200 monedas
-        dailyCoins += amount;
+        table.addCoins(slot, amount);
     }
     
     public boolean canCollectMore() {
@@ -146,7 +204,7 @@ public class Robot {
     }
     
     public int getInitialSegment() { 
-        return initialSegment; 
+        return table.getInitialSegment(slot); 
     }
     
     public int getX() { 
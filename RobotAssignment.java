@@ -0,0 +1,192 @@
+import java.util.Arrays;
+
+/**
+ * RobotAssignment asigna robots a tiendas, a lo sumo un robot por tienda,
+ * maximizando la ganancia total: las monedas de las tiendas asignadas menos
+ * los metros recorridos. Un robot puede quedarse sin tienda si ninguna le
+ * deja ganancia. La respuesta es exacta y cuesta O((R+S) log(R+S)).
+ *
+ * Como la carretera es una línea, el problema es un flujo de costo mínimo
+ * sobre una línea ("ratones y hoyos"). Se recorren robots y tiendas por
+ * ubicación y se simulan los caminos de aumento con dos montículos de
+ * arrepentimiento: uno con lo que cuesta llevar un robot a un hoyo que ya
+ * pasó y otro con lo que cuesta que un hoyo tome un robot que ya pasó.
+ * Cada tienda es un hoyo que cuesta -monedas, y cada robot tiene además su
+ * propio hoyo, en su misma ubicación y de costo 0, que significa quedarse.
+ *
+ * Cada elemento de los montículos recuerda dónde empieza su camino de
+ * aumento; así al final se sabe cuántos robots cruzan cada tramo entre dos
+ * puntos y en qué sentido, y con eso se arman las parejas en orden.
+ *
+ * @author  SilkRoad
+ * @version 1.0
+ */
+public class RobotAssignment
+{
+    private RobotAssignment()
+    {
+    }
+
+    /**
+     * Calcula la asignación óptima.
+     * @param  robotLocations  la ubicación de cada robot
+     * @param  storeLocations  la ubicación de cada tienda
+     * @param  storeCoins      las monedas de cada tienda
+     * @return para cada robot, el índice de su tienda o -1 si se queda
+     */
+    public static int[] assign(int[] robotLocations, int[] storeLocations, int[] storeCoins)
+    {
+        int robotCount = robotLocations.length;
+        int storeCount = storeLocations.length;
+        // Puntos: primero las tiendas, luego el hoyo propio de cada robot y
+        // luego los robots; en una misma ubicación quedan en ese orden
+        int pointCount = storeCount + 2 * robotCount;
+        long[] order = new long[pointCount];
+        for(int j = 0; j < storeCount; j++) {
+            order[j] = ((long)storeLocations[j] << 32) | j;
+        }
+        for(int i = 0; i < robotCount; i++) {
+            order[storeCount + i] = ((long)robotLocations[i] << 32) | (storeCount + i);
+            order[storeCount + robotCount + i] = ((long)robotLocations[i] << 32) | (storeCount + robotCount + i);
+        }
+        Arrays.sort(order);
+
+        // Simular el flujo. flow[p] acumula, como diferencias, cuántos robots
+        // cruzan hacia la derecha el tramo entre los puntos p y p + 1
+        Heap holes = new Heap(2 * pointCount);
+        Heap mice = new Heap(2 * pointCount);
+        int[] flow = new int[pointCount + 1];
+        for(int p = 0; p < pointCount; p++) {
+            int point = (int)order[p];
+            long x = order[p] >>> 32;
+            if(point >= storeCount + robotCount) {
+                // Un robot: siempre hay un hoyo detrás, al menos el suyo
+                long value = x + holes.topValue();
+                int origin = holes.topOrigin();
+                holes.pop();
+                flow[origin]--;
+                flow[p]++;
+                mice.push(-value - x, origin);
+            }
+            else {
+                long cost = point < storeCount ? -storeCoins[point] : 0;
+                if(!mice.isEmpty() && x + cost + mice.topValue() < 0) {
+                    long value = mice.topValue();
+                    int origin = mice.topOrigin();
+                    mice.pop();
+                    flow[origin]++;
+                    flow[p]--;
+                    holes.push(-value - 2 * x, origin);
+                    mice.push(-x - cost, p);
+                }
+                else {
+                    holes.push(cost - x, p);
+                }
+            }
+        }
+
+        // Armar las parejas: recorriendo los tramos, los robots que cruzan
+        // hacia la derecha esperan su hoyo en una cola, y los hoyos que
+        // reciben un robot desde la derecha lo esperan en otra
+        int[] target = new int[robotCount];
+        Arrays.fill(target, -1);
+        int[] waiting = new int[pointCount];
+        int head = 0;
+        int tail = 0;
+        int crossing = 0;       // robots que cruzan el tramo anterior hacia la derecha
+        for(int p = 0; p < pointCount; p++) {
+            int point = (int)order[p];
+            int next = crossing + flow[p];
+            if(point >= storeCount + robotCount) {
+                int robot = point - storeCount - robotCount;
+                if(crossing < 0) {
+                    match(target, robot, waiting[head++], storeCount);
+                }
+                else {
+                    waiting[tail++] = robot;
+                }
+            }
+            else if(crossing - next == 1) {
+                if(crossing > 0) {
+                    match(target, waiting[head++], point, storeCount);
+                }
+                else {
+                    waiting[tail++] = point;
+                }
+            }
+            crossing = next;
+        }
+        return target;
+    }
+
+    // Empareja un robot con un hoyo; si el hoyo no es una tienda el robot se queda
+    private static void match(int[] target, int robot, int hole, int storeCount)
+    {
+        target[robot] = hole < storeCount ? hole : -1;
+    }
+
+    /**
+     * Montículo de mínimos de valores long, cada uno con el punto donde
+     * empieza su camino de aumento.
+     */
+    private static class Heap
+    {
+        private long[] values;
+        private int[] origins;
+        private int size;
+
+        Heap(int capacity)
+        {
+            values = new long[Math.max(capacity, 1)];
+            origins = new int[Math.max(capacity, 1)];
+        }
+
+        boolean isEmpty()
+        {
+            return size == 0;
+        }
+
+        long topValue()
+        {
+            return values[0];
+        }
+
+        int topOrigin()
+        {
+            return origins[0];
+        }
+
+        void push(long value, int origin)
+        {
+            int i = size++;
+            while(i > 0 && values[(i - 1) / 2] > value) {
+                values[i] = values[(i - 1) / 2];
+                origins[i] = origins[(i - 1) / 2];
+                i = (i - 1) / 2;
+            }
+            values[i] = value;
+            origins[i] = origin;
+        }
+
+        void pop()
+        {
+            long value = values[--size];
+            int origin = origins[size];
+            int i = 0;
+            while(2 * i + 1 < size) {
+                int child = 2 * i + 1;
+                if(child + 1 < size && values[child + 1] < values[child]) {
+                    child++;
+                }
+                if(values[child] >= value) {
+                    break;
+                }
+                values[i] = values[child];
+                origins[i] = origins[child];
+                i = child;
+            }
+            values[i] = value;
+            origins[i] = origin;
+        }
+    }
+}
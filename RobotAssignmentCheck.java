@@ -0,0 +1,147 @@
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * RobotAssignmentCheck compara RobotAssignment.assign con una búsqueda por
+ * fuerza bruta en casos pequeños al azar: hasta 5 robots y 5 tiendas en
+ * carreteras cortas, donde es fácil que varios compartan ubicación. La
+ * fuerza bruta prueba, para cada robot, quedarse o cada tienda libre.
+ * Revisa que la asignación sea válida (a lo sumo un robot por tienda) y
+ * que su ganancia sea la máxima.
+ *
+ * Además prueba casos grandes, de cientos de robots y tiendas, contra una
+ * programación dinámica O(R·S). Sobre una línea siempre hay una asignación
+ * óptima sin cruces, así que al ordenar robots y tiendas por ubicación el
+ * óptimo se arma por prefijos. En estos casos casi todos se amontonan en
+ * pocas ubicaciones, para forzar muchos empates.
+ *
+ * Uso: java RobotAssignmentCheck [casos] [semilla]
+ *
+ * @author  SilkRoad
+ * @version 1.0
+ */
+public class RobotAssignmentCheck
+{
+    private static final int MAX_ROBOTS = 5;
+    private static final int MAX_STORES = 5;
+    private static final int LARGE_SIZE = 400;
+
+    private RobotAssignmentCheck()
+    {
+    }
+
+    public static void main(String[] args)
+    {
+        int cases = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        Random random = new Random(args.length > 1 ? Long.parseLong(args[1]) : 1);
+        int failures = 0;
+        int largeCases = Math.max(1, cases / 100);
+        for(int c = 0; c < cases + largeCases; c++) {
+            boolean large = c >= cases;
+            int length = 1 + random.nextInt(large ? 1000 : c % 2 == 0 ? 4 : 30);
+            int[] robots = new int[random.nextInt(large ? LARGE_SIZE : MAX_ROBOTS + 1)];
+            int[] stores = new int[random.nextInt(large ? LARGE_SIZE : MAX_STORES + 1)];
+            int[] coins = new int[stores.length];
+            // en los casos grandes, casi todos caen en unas pocas ubicaciones
+            int[] crowded = new int[1 + random.nextInt(3)];
+            for(int k = 0; k < crowded.length; k++) {
+                crowded[k] = random.nextInt(length);
+            }
+            for(int i = 0; i < robots.length; i++) {
+                robots[i] = location(random, length, large, crowded);
+            }
+            for(int j = 0; j < stores.length; j++) {
+                stores[j] = location(random, length, large, crowded);
+                coins[j] = 1 + random.nextInt(large ? 3 : 30);
+            }
+            int[] target = RobotAssignment.assign(robots, stores, coins);
+            long got = profit(target, robots, stores, coins);
+            long best = large ? bestProfitSorted(robots, stores, coins)
+                              : bestProfit(robots, stores, coins, 0, new boolean[stores.length]);
+            if(got != best) {
+                failures++;
+                System.out.println("Falla: robots " + Arrays.toString(robots)
+                                   + " tiendas " + Arrays.toString(stores)
+                                   + " monedas " + Arrays.toString(coins)
+                                   + " asignación " + Arrays.toString(target)
+                                   + " ganancia " + got + " óptimo " + best);
+            }
+        }
+        System.out.println(failures == 0 ? "ok (" + cases + " casos, " + largeCases + " grandes)"
+                                         : failures + " fallas");
+        if(failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static int location(Random random, int length, boolean large, int[] crowded)
+    {
+        if(large && random.nextInt(4) != 0) {
+            return crowded[random.nextInt(crowded.length)];
+        }
+        return random.nextInt(length);
+    }
+
+    // Ganancia de la asignación, o Long.MIN_VALUE si no es válida
+    private static long profit(int[] target, int[] robots, int[] stores, int[] coins)
+    {
+        if(target.length != robots.length) {
+            return Long.MIN_VALUE;
+        }
+        boolean[] taken = new boolean[stores.length];
+        long total = 0;
+        for(int i = 0; i < robots.length; i++) {
+            int store = target[i];
+            if(store == -1) {
+                continue;
+            }
+            if(store < 0 || store >= stores.length || taken[store]) {
+                return Long.MIN_VALUE;
+            }
+            taken[store] = true;
+            total += coins[store] - Math.abs(robots[i] - stores[store]);
+        }
+        return total;
+    }
+
+    // Mejor ganancia para los robots desde robot en adelante, con las tiendas libres
+    private static long bestProfit(int[] robots, int[] stores, int[] coins, int robot, boolean[] taken)
+    {
+        if(robot == robots.length) {
+            return 0;
+        }
+        long best = bestProfit(robots, stores, coins, robot + 1, taken);
+        for(int j = 0; j < stores.length; j++) {
+            if(!taken[j]) {
+                taken[j] = true;
+                long value = coins[j] - Math.abs(robots[robot] - stores[j])
+                             + bestProfit(robots, stores, coins, robot + 1, taken);
+                taken[j] = false;
+                best = Math.max(best, value);
+            }
+        }
+        return best;
+    }
+
+    // Mejor ganancia por prefijos de robots y tiendas ordenados por ubicación:
+    // best[i][j] usa los primeros i robots y las primeras j tiendas
+    private static long bestProfitSorted(int[] robots, int[] stores, int[] coins)
+    {
+        int[] robotOrder = robots.clone();
+        Arrays.sort(robotOrder);
+        long[] storeOrder = new long[stores.length];
+        for(int j = 0; j < stores.length; j++) {
+            storeOrder[j] = ((long)stores[j] << 32) | j;
+        }
+        Arrays.sort(storeOrder);
+        long[][] best = new long[robots.length + 1][stores.length + 1];
+        for(int i = 1; i <= robots.length; i++) {
+            for(int j = 1; j <= stores.length; j++) {
+                int store = (int)storeOrder[j - 1];
+                long matched = best[i - 1][j - 1] + coins[store] - Math.abs(robotOrder[i - 1] - stores[store]);
+                best[i][j] = Math.max(matched, Math.max(best[i - 1][j], best[i][j - 1]));
+            }
+        }
+        return best[robots.length][stores.length];
+    }
+}
@@ -0,0 +1,60 @@
+/**
+ * RobotTable guarda los datos de simulación de los robots (ubicación,
+ * segmento inicial y monedas recogidas en el día), una fila por robot. Los
+ * objetos Robot solo dibujan y leen su fila de la tabla.
+ *
+ * Al quitar una fila, la última ocupa su lugar (igual que en las listas de
+ * SilkRoad), así todas las operaciones cuestan O(1).
+ *
+ * Hay dos implementaciones: HeapRobotTable guarda una columna de enteros
+ * por dato en el heap; OffHeapRobotTable guarda un registro por robot
+ * fuera del heap.
+ *
+ * @author  SilkRoad
+ * @version 1.0
+ */
+public interface RobotTable
+{
+    /**
+     * Agrega un robot sin monedas.
+     * @param  location  su ubicación, que también es su segmento inicial
+     * @return la fila del robot
+     */
+    int add(int location);
+
+    /**
+     * Agrega una copia de una fila de otra tabla.
+     * @param  source  la otra tabla
+     * @param  slot    la fila a copiar
+     * @return la fila nueva
+     */
+    int addCopy(RobotTable source, int slot);
+
+    /**
+     * Quita una fila; la última fila pasa a ocupar su lugar.
+     * @param  slot  la fila
+     */
+    void remove(int slot);
+
+    /**
+     * Quita todas las filas.
+     */
+    void clear();
+
+    /**
+     * @return cuántos robots hay
+     */
+    int size();
+
+    int getLocation(int slot);
+
+    void setLocation(int slot, int location);
+
+    int getInitialSegment(int slot);
+
+    int getDailyCoins(int slot);
+
+    void addCoins(int slot, int amount);
+
+    void resetDay(int slot);
+}
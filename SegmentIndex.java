@@ -0,0 +1,45 @@
+/**
+ * SegmentIndex relaciona cada segmento de la carretera con la posición (slot)
+ * de lo que tiene encima en las listas de SilkRoad, y permite recorrer los
+ * segmentos ocupados en orden de ubicación.
+ *
+ * Hay dos implementaciones: DenseSegmentIndex guarda un dato por metro y es
+ * la más rápida en carreteras cortas; SparseSegmentIndex solo guarda los
+ * segmentos ocupados, así su memoria depende de cuántas tiendas o robots
+ * hay y no del largo de la carretera.
+ *
+ * @author  SilkRoad
+ * @version 1.0
+ */
+public interface SegmentIndex
+{
+    /**
+     * @param  location  la ubicación del segmento
+     * @return la posición guardada en el segmento, o -1 si está vacío
+     */
+    int get(int location);
+
+    /**
+     * Guarda una posición en el segmento; con -1 el segmento queda vacío.
+     * @param  location  la ubicación del segmento
+     * @param  slot      la posición a guardar, o -1
+     */
+    void set(int location, int slot);
+
+    /**
+     * @param  from  una ubicación
+     * @return el primer segmento ocupado desde from (inclusive), o -1 si no
+     *         hay más
+     */
+    int next(int from);
+
+    /**
+     * @return el último segmento ocupado, o -1 si no hay ninguno
+     */
+    int last();
+
+    /**
+     * Deja todos los segmentos vacíos.
+     */
+    void clear();
+}
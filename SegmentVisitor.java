@@ -0,0 +1,20 @@
+/**
+ * SegmentVisitor recibe una por una las filas de una consulta de SilkRoad
+ * (ver SilkRoad.forEachStore, forEachRobot y forEachEmptiedStore), en el
+ * mismo orden que las matrices de stores(), robots() y emptiedStores(),
+ * pero sin crear ningún arreglo para ellas.
+ *
+ * @author  SilkRoad
+ * @version 1.0
+ */
+public interface SegmentVisitor
+{
+    /**
+     * Recibe una fila de la consulta. No debe modificar la simulación que
+     * se está recorriendo.
+     * @param  location  la ubicación de la fila
+     * @param  value     el dato de la fila (tenges, monedas recogidas o
+     *                   veces vaciada, según la consulta)
+     */
+    void visit(int location, int value);
+}
@@ -1,90 +1,183 @@
+import java.io.File;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.awt.Point;
 
 public class SilkRoad {
     // Atributos según el diagrama Astah
     private Road road;
+    private Renderer renderer;
     private ArrayList<Store> stores;
-    private ArrayList<Integer> storeSegments;
     private ArrayList<Robot> robots;
-    private ArrayList<Integer> robotSegments;
     
-    // Nueva estructura con Segments (interna)
-    private ArrayList<Segment> segments;
+    // Las vistas Store y Robot de stores/robots solo dibujan: sin pantalla no
+    // se crean, las listas quedan vacías y todo se lee de las tablas
+    private boolean views;
+    
+    // Datos de simulación de tiendas y robots, una fila por posición de
+    // stores/robots (los objetos Store y Robot solo dibujan y leen su fila)
+    private StoreTable storeTable;
+    private RobotTable robotTable;
+    
+    // Robot registrado en cada segmento (su orden de colocación, -1 si no
+    // hay). Como un Segment, el segmento registra un robot solo si estaba
+    // vacío (sin tienda ni robot registrado) cuando el robot llegó, y lo
+    // olvida cuando cualquier robot se va. La tienda del segmento es la de
+    // storeAt
+    private SegmentIndex segmentRobot;
+    
+    // Índices de segmento a posición en stores/robots (-1 si está vacío).
+    // Recorrerlos da las ubicaciones ya ordenadas, así stores() y robots()
+    // no ordenan. Varios robots pueden quedar en el mismo segmento: robotAt
+    // guarda el colocado primero y nextRobot encadena los demás en orden de
+    // colocación
+    private SegmentIndex storeAt;
+    private SegmentIndex robotAt;
+    private int[] nextRobot;
+    private int[] robotOrder;   // orden de colocación de cada robot, para desempates
+    private int placedRobots;
+    
+    // Posiciones de los robots encadenadas en orden de colocación (-1 al
+    // final), para recorrerlos en ese orden sin ordenar
+    private int[] placedBefore;
+    private int[] placedAfter;
+    private int firstPlaced;
+    private int lastPlaced;
+    
+    // Handles estables de tiendas y robots: la tabla resuelve handle -> posición
+    // y storeHandle/robotHandle guardan el handle de cada posición
+    private HandleTable storeHandles;
+    private HandleTable robotHandles;
+    private long[] storeHandle;
+    private long[] robotHandle;
     
     // Tracking de costos de movimiento
     private int totalMovementCosts;
     
+    // Totales que se mantienen con cada cambio, para no recorrer tiendas y
+    // robots al actualizar la barra o calcular profit()
+    private int totalInitialStoreCoins;   // suma de las monedas iniciales de las tiendas
+    private int totalStoreCoins;          // monedas que quedan en las tiendas
+    private int totalCollectedCoins;      // monedas recogidas por los robots en el día
+    
     // Barra de progreso
     private ProfitBar profitBar;
     
+    // Mapa de calor para la vista alejada (null si no hay pantalla)
+    private DensityMap densityMap;
+    
     // NUEVO: Historial de movimientos individuales para profitPerMove()
-    private ArrayList<ArrayList<Integer>> robotMovementHistory;  // metros por movimiento
-    private ArrayList<ArrayList<Integer>> robotCoinHistory;      // monedas recogidas por movimiento
+    // (metros y monedas recogidas por movimiento, por posición del robot)
+    private MoveHistory moveHistory;
     
     // Ajuste para centrar objetos dentro del cuadro de la carretera
     private static final int CELL_TO_OBJECT_OFFSET = 20;
+    
+    // Desde este largo los índices de segmento solo guardan los segmentos
+    // ocupados (más abajo, un arreglo por metro es más rápido y cuesta poco)
+    private static final int SPARSE_INDEX_LENGTH = 1 << 16;
+    
+    // Máximo de puntos en el camino animado de un robot (los viajes largos se muestrean)
+    private static final int MAX_PATH_POINTS = 64;
 
     public SilkRoad(int length) {
-        road = new Road(length);
+        this(length, Renderer.CANVAS);
+    }
+    
+    /**
+     * Crea la ruta dibujando en el renderer dado. Con Renderer.NONE la
+     * simulación corre sin pantalla.
+     */
+    public SilkRoad(int length, Renderer renderer) {
+        this(length, renderer, false, null);
+    }
+    
+    /**
+     * Crea la ruta guardando fuera del heap la ocupación de los segmentos,
+     * las monedas de las tiendas y las posiciones de los robots, en
+     * registros de tamaño fijo (ver OffHeapMemory). Sirve para carreteras
+     * muy largas con muchas tiendas y robots, donde esos datos no caben en
+     * el heap o el recolector de basura tarda demasiado en recorrerlos.
+     * @param  directory  el directorio donde mapear cada tabla a un
+     *                    archivo, o null para usar memoria directa
+     */
+    public SilkRoad(int length, Renderer renderer, File directory) {
+        this(length, renderer, true, directory);
+    }
+    
+    private SilkRoad(int length, Renderer renderer, boolean offHeap, File directory) {
+        this.renderer = renderer;
+        road = new Road(length, renderer);
         stores = new ArrayList<>();
-        storeSegments = new ArrayList<>();
         robots = new ArrayList<>();
-        robotSegments = new ArrayList<>();
-        segments = new ArrayList<>();
+        views = !renderer.isHeadless();
+        if (directory != null) {
+            directory.mkdirs();
+        }
+        if (offHeap) {
+            storeTable = new OffHeapStoreTable(fileIn(directory, "stores.bin"));
+            robotTable = new OffHeapRobotTable(fileIn(directory, "robots.bin"));
+        } else {
+            storeTable = new HeapStoreTable();
+            robotTable = new HeapRobotTable();
+        }
         totalMovementCosts = 0;
         
         // Inicializar historial de movimientos
-        robotMovementHistory = new ArrayList<>();
-        robotCoinHistory = new ArrayList<>();
+        moveHistory = new MoveHistory();
         
         // Inicializar barra de progreso
-        profitBar = new ProfitBar();
+        profitBar = new ProfitBar(renderer);
     
-        // Inicializar segmentos directamente
-        int segmentCount = road.getSegmentCount();
-        for (int i = 0; i < segmentCount; i++) {
-            Point pos = road.getSegmentPosition(i);
-            segments.add(new Segment(i, pos));
+        if (offHeap) {
+            storeAt = new OffHeapSegmentIndex(fileIn(directory, "store-index.bin"),
+                                              fileIn(directory, "store-occupied.bin"));
+            robotAt = new OffHeapSegmentIndex(fileIn(directory, "robot-index.bin"),
+                                              fileIn(directory, "robot-occupied.bin"));
+            segmentRobot = new OffHeapSegmentIndex(fileIn(directory, "segment-robot.bin"),
+                                                   fileIn(directory, "segment-robot-occupied.bin"));
+        } else {
+            storeAt = newSegmentIndex(road.getSegmentCount());
+            robotAt = newSegmentIndex(road.getSegmentCount());
+            segmentRobot = newSegmentIndex(road.getSegmentCount());
+        }
+        nextRobot = new int[16];
+        robotOrder = new int[16];
+        placedBefore = new int[16];
+        placedAfter = new int[16];
+        firstPlaced = -1;
+        lastPlaced = -1;
+        storeHandles = new HandleTable();
+        robotHandles = new HandleTable();
+        storeHandle = new long[16];
+        robotHandle = new long[16];
+        
+        // Mapa de densidad: solo tiene sentido si algo se dibuja
+        if (!renderer.isHeadless()) {
+            // (la carretera misma la pinta el Canvas, no se cuenta por baldosa)
+            densityMap = new DensityMap();
+            renderer.setDensityMap(densityMap);
         }
     }
 
-        public SilkRoad(int[][] days) {
-        // Calcular la longitud mínima necesaria basada en las ubicaciones más altas
-        int maxLocation = 0;
-        for (int[] day : days) {
-            if (day.length >= 2 && day[1] > maxLocation) {
-                maxLocation = day[1];
-            }
-        }
-        
-        // Crear carretera con longitud suficiente (mínimo 10, máximo ubicación + 5)
-        int roadLength = Math.max(10, maxLocation + 5);
-        
-        // Inicializar componentes básicos
-        road = new Road(roadLength);
-        stores = new ArrayList<>();
-        storeSegments = new ArrayList<>();
-        robots = new ArrayList<>();
-        robotSegments = new ArrayList<>();
-        segments = new ArrayList<>();
-        totalMovementCosts = 0;
-        
-        // Inicializar historial de movimientos
-        robotMovementHistory = new ArrayList<>();
-        robotCoinHistory = new ArrayList<>();
-        
-        // Inicializar barra de progreso
-        profitBar = new ProfitBar();
-        
-        // Inicializar segmentos directamente
-        int segmentCount = road.getSegmentCount();
-        for (int i = 0; i < segmentCount; i++) {
-            Point pos = road.getSegmentPosition(i);
-            segments.add(new Segment(i, pos));
+    public SilkRoad(int[][] days) {
+        this(days, Renderer.CANVAS);
+    }
+    
+    public SilkRoad(int[][] days, Renderer renderer) {
+        this(requiredLength(days), renderer);
+        
+        // Procesar la configuración de días en un solo lote de dibujo
+        renderer.beginBatch();
+        try {
+            loadDays(days);
+            makeVisible();
+        } finally {
+            renderer.commitBatch();
         }
-        
-        // Procesar la configuración de días
+    }
+    
+    private void loadDays(int[][] days) {
         // Los días se numeran consecutivamente desde 1, ignorando el valor en days[i][0]
         for (int i = 0; i < days.length; i++) {
             int[] dayConfig = days[i];
@@ -96,7 +189,7 @@ public class SilkRoad {
             int value = dayConfig[3];
             
             
-            if (location < 0 || location >= segments.size()) continue;
+            if (location < 0 || location >= road.getLength()) continue;
             System.out.println("Día " + day + ":");
             
             if (type == 1) {
@@ -109,26 +202,256 @@ public class SilkRoad {
                 placeRobot(location);
             }
         }
-        makeVisible();
     }
 
     
-    // Método auxiliar PRIVADO para calcular total inicial de monedas en tiendas
-    private int getTotalInitialCoinsInStores() {
-        int total = 0;
-        for (Store store : stores) {
-            total += store.getInitialCoins();
+    // Calcula la longitud mínima necesaria basada en las ubicaciones más altas
+    private static int requiredLength(int[][] days) {
+        int maxLocation = 0;
+        for (int[] day : days) {
+            if (day.length >= 2 && day[1] > maxLocation) {
+                maxLocation = day[1];
+            }
         }
-        return total;
+        
+        // Crear carretera con longitud suficiente (mínimo 10, máximo ubicación + 5)
+        return Math.max(10, maxLocation + 5);
     }
     
-    // Método auxiliar PRIVADO para calcular monedas recolectadas
-    private int getTotalCoinsCollected() {
-        int total = 0;
-        for (Robot robot : robots) {
-            total += robot.getDailyCoins();
+    // Métodos auxiliares PRIVADOS para mantener el mapa de densidad al día
+    private void updateDensityCoins(int location, int delta) {
+        if (densityMap != null) {
+            Point pos = positionOf(location);
+            densityMap.addCoins(pos.x, pos.y, delta);
+        }
+    }
+    
+    private void updateDensityRobots(int location, int delta) {
+        if (densityMap != null) {
+            Point pos = positionOf(location);
+            densityMap.addRobots(pos.x, pos.y, delta);
+        }
+    }
+    
+    // Métodos auxiliares PRIVADOS para el robot registrado en cada segmento
+    private void registerRobot(int slot, int location) {
+        if (storeAt.get(location) == -1 && segmentRobot.get(location) == -1) {
+            segmentRobot.set(location, robotOrder[slot]);
+        }
+    }
+    
+    // Posición del robot registrado en el segmento, o -1 (siempre está en
+    // la cadena del segmento: se olvida cuando cualquier robot se va)
+    private int registeredRobotSlot(int location) {
+        int order = segmentRobot.get(location);
+        if (order == -1) {
+            return -1;
+        }
+        int idx = robotAt.get(location);
+        while (robotOrder[idx] != order) {
+            idx = nextRobot[idx];
+        }
+        return idx;
+    }
+    
+    // Métodos auxiliares PRIVADOS para las vistas, que solo existen si algo se dibuja
+    private void setStoreCoins(int slot, int coins) {
+        if (views) {
+            stores.get(slot).setCoins(coins); // además muestra u oculta la puerta
+        } else {
+            storeTable.setCoins(slot, coins);
+        }
+    }
+    
+    private void restockStore(int slot) {
+        if (views) {
+            stores.get(slot).restock();
+        } else {
+            storeTable.restock(slot);
+        }
+    }
+    
+    // Posición del segmento en pixeles (IndexOutOfBoundsException si no está en la carretera)
+    private Point positionOf(int location) {
+        java.util.Objects.checkIndex(location, road.getLength());
+        return road.getSegmentPosition(location);
+    }
+    
+    // Métodos auxiliares PRIVADOS para los índices de segmento a posición
+    private static SegmentIndex newSegmentIndex(int length) {
+        if (length >= SPARSE_INDEX_LENGTH) {
+            return new SparseSegmentIndex();
+        }
+        return new DenseSegmentIndex(length);
+    }
+    
+    // Archivo de una tabla off-heap, o null si se usa memoria directa
+    private static File fileIn(File directory, String name) {
+        return directory == null ? null : new File(directory, name);
+    }
+    
+    private int robotSlotAt(int location) {
+        return location >= 0 && location < road.getLength() ? robotAt.get(location) : -1;
+    }
+    
+    // Agrega el robot de la posición slot a la cadena de su segmento, según su orden de colocación
+    private void linkRobot(int slot, int location) {
+        int order = robotOrder[slot];
+        int first = robotAt.get(location);
+        if (first == -1 || robotOrder[first] > order) {
+            nextRobot[slot] = first;
+            robotAt.set(location, slot);
+            return;
+        }
+        int previous = first;
+        while (nextRobot[previous] != -1 && robotOrder[nextRobot[previous]] < order) {
+            previous = nextRobot[previous];
+        }
+        nextRobot[slot] = nextRobot[previous];
+        nextRobot[previous] = slot;
+    }
+    
+    // Saca el robot de la posición slot de la cadena de su segmento
+    private void unlinkRobot(int slot, int location) {
+        replaceRobotLink(location, slot, nextRobot[slot]);
+    }
+    
+    // En la cadena del segmento, cambia la referencia a oldSlot por newSlot
+    private void replaceRobotLink(int location, int oldSlot, int newSlot) {
+        int previous = robotAt.get(location);
+        if (previous == oldSlot) {
+            robotAt.set(location, newSlot);
+            return;
+        }
+        while (nextRobot[previous] != oldSlot) {
+            previous = nextRobot[previous];
+        }
+        nextRobot[previous] = newSlot;
+    }
+    
+    // Quita la tienda de la posición slot llenando el hueco con la última
+    private void removeStoreSlot(int slot) {
+        int last = storeTable.size() - 1;
+        totalInitialStoreCoins -= storeTable.getInitialCoins(slot);
+        totalStoreCoins -= storeTable.getCoins(slot);
+        storeAt.set(storeTable.getLocation(slot), -1);
+        if (views) {
+            stores.get(slot).detach();
+        }
+        storeTable.remove(slot);
+        storeHandles.release(storeHandle[slot]);
+        if (slot != last) {
+            if (views) {
+                stores.set(slot, stores.get(last));
+                stores.get(slot).setSlot(slot);
+            }
+            storeAt.set(storeTable.getLocation(slot), slot);
+            storeHandle[slot] = storeHandle[last];
+            storeHandles.update(storeHandle[slot], slot);
+        }
+        if (views) {
+            stores.remove(last);
+        }
+    }
+    
+    // Quita el robot de la posición slot llenando el hueco con el último
+    private void removeRobotSlot(int slot) {
+        int last = robotTable.size() - 1;
+        totalCollectedCoins -= robotTable.getDailyCoins(slot);
+        unlinkRobot(slot, robotTable.getLocation(slot));
+        unlinkPlaced(slot);
+        robotHandles.release(robotHandle[slot]);
+        if (views) {
+            robots.get(slot).detach();
+        }
+        if (slot != last) {
+            replaceRobotLink(robotTable.getLocation(last), last, slot);
+            nextRobot[slot] = nextRobot[last];
+            robotOrder[slot] = robotOrder[last];
+            replacePlacedLink(last, slot);
+            robotHandle[slot] = robotHandle[last];
+            robotHandles.update(robotHandle[slot], slot);
+            if (views) {
+                robots.set(slot, robots.get(last));
+                robots.get(slot).setSlot(slot);
+            }
+            moveHistory.moveRobot(last, slot);
+        }
+        robotTable.remove(slot);
+        if (views) {
+            robots.remove(last);
         }
-        return total;
+    }
+    
+    // Saca la posición slot de la cadena de orden de colocación
+    private void unlinkPlaced(int slot) {
+        int before = placedBefore[slot];
+        int after = placedAfter[slot];
+        if (before == -1) {
+            firstPlaced = after;
+        } else {
+            placedAfter[before] = after;
+        }
+        if (after == -1) {
+            lastPlaced = before;
+        } else {
+            placedBefore[after] = before;
+        }
+    }
+    
+    // En la cadena de orden de colocación, el robot de oldSlot pasa a newSlot
+    private void replacePlacedLink(int oldSlot, int newSlot) {
+        int before = placedBefore[oldSlot];
+        int after = placedAfter[oldSlot];
+        placedBefore[newSlot] = before;
+        placedAfter[newSlot] = after;
+        if (before == -1) {
+            firstPlaced = newSlot;
+        } else {
+            placedAfter[before] = newSlot;
+        }
+        if (after == -1) {
+            lastPlaced = newSlot;
+        } else {
+            placedBefore[after] = newSlot;
+        }
+    }
+    
+    // Método auxiliar PRIVADO: lleva el robot de un segmento a otro. El camino
+    // animado solo se arma si alguien lo va a ver; si no, el robot salta al final
+    private void showRobotMove(Robot robot, int from, int to) {
+        if (renderer.isHeadless() || !robot.isVisible()) {
+            Point pos = positionOf(to);
+            robot.moveTo(pos.x + CELL_TO_OBJECT_OFFSET, pos.y + CELL_TO_OBJECT_OFFSET);
+            return;
+        }
+        int[][] path = pathBetween(from, to);
+        robot.moveAlong(path[0], path[1]);
+    }
+    
+    // Método auxiliar PRIVADO: camino por la espiral entre dos segmentos, {xs, ys}
+    private int[][] pathBetween(int from, int to) {
+        int distance = Math.abs(to - from);
+        int points = Math.min(distance, MAX_PATH_POINTS - 1) + 1;
+        int[][] path = new int[2][points];
+        for (int i = 0; i < points; i++) {
+            long offset = points == 1 ? 0 : (long) distance * i / (points - 1);
+            int location = to > from ? from + (int) offset : from - (int) offset;
+            Point pos = positionOf(location);
+            path[0][i] = pos.x + CELL_TO_OBJECT_OFFSET;
+            path[1][i] = pos.y + CELL_TO_OBJECT_OFFSET;
+        }
+        return path;
+    }
+    
+    // Método auxiliar PRIVADO: total inicial de monedas en tiendas
+    private int getTotalInitialCoinsInStores() {
+        return totalInitialStoreCoins;
+    }
+    
+    // Método auxiliar PRIVADO: monedas recolectadas
+    private int getTotalCoinsCollected() {
+        return totalCollectedCoins;
     }
     
     // =============================
@@ -136,66 +459,83 @@ public class SilkRoad {
     // =============================
     
     public void placeStore(int location, int tenges) {
-        if (location < 0 || location >= segments.size()) {
+        placeStoreHandle(location, tenges);
+    }
+    
+    /**
+     * Igual que placeStore, pero devuelve un handle estable de la tienda
+     * para usar con removeStoreByHandle y storeLocation.
+     * @return el handle, o HandleTable.NONE si no se pudo colocar
+     */
+    public long placeStoreHandle(int location, int tenges) {
+        renderer.setOperation("placeStore");
+        if (location < 0 || location >= road.getLength()) {
             System.out.println("Ubicación inválida para tienda: " + location);
-            return;
+            return HandleTable.NONE;
         }
         
         // Verificar que no haya ya una tienda en esa ubicación
-        if (storeSegments.contains(location)) {
+        if (storeAt.get(location) != -1) {
             System.out.println("Ya hay una tienda en el segmento " + location);
-            return;
+            return HandleTable.NONE;
         }
         
         // Verificar que no haya un robot en esa ubicación
-        if (robotSegments.contains(location)) {
+        if (robotAt.get(location) != -1) {
             System.out.println("No se puede colocar tienda en segmento " + location + " porque ya hay un robot.");
-            return;
+            return HandleTable.NONE;
         }
         
-        Point pos = segments.get(location).getPosition();
-        int x = pos.x + CELL_TO_OBJECT_OFFSET;
-        int y = pos.y + CELL_TO_OBJECT_OFFSET;
-
-        Store store = new Store(x, y, tenges);
+        int slot = storeTable.add(location, tenges);
         
         // Agregar a las estructuras del diagrama Astah
-        stores.add(store);
-        storeSegments.add(location);
+        if (views) {
+            Point pos = positionOf(location);
+            stores.add(new Store(pos.x + CELL_TO_OBJECT_OFFSET, pos.y + CELL_TO_OBJECT_OFFSET,
+                                 storeTable, slot, renderer));
+        }
+        if (slot == storeHandle.length) {
+            storeHandle = Arrays.copyOf(storeHandle, slot * 2);
+        }
+        storeAt.set(location, slot);
+        storeHandle[slot] = storeHandles.allocate(slot);
+        totalInitialStoreCoins += tenges;
+        totalStoreCoins += tenges;
         
-        // Agregar al segmento
-        segments.get(location).placeStore(store);
+        updateDensityCoins(location, tenges);
         
-        store.makeVisible();
+        if (views) {
+            stores.get(slot).makeVisible();
+        }
         
         // Actualizar barra de progreso
         profitBar.updateMaxProfit(getTotalInitialCoinsInStores());
         profitBar.updateCurrentProfit(getTotalCoinsCollected());
         
         System.out.println("Tienda colocada en segmento " + location + " con " + tenges + " tenges.");
+        return storeHandle[slot];
     }
     
     public void removeStore(int location) {
-        if (location < 0 || location >= segments.size()) {
+        renderer.setOperation("removeStore");
+        if (location < 0 || location >= road.getLength()) {
             System.out.println("Ubicación inválida: " + location);
             return;
         }
         
-        Segment segment = segments.get(location);
-        if (!segment.hasStore()) {
+        int idx = storeAt.get(location);
+        if (idx == -1) {
             System.out.println("No hay tienda en el segmento " + location);
             return;
         }
         
-        Store store = segment.removeStore();
-        store.makeInvisible();
+        if (views) {
+            stores.get(idx).makeInvisible();
+        }
+        updateDensityCoins(location, -storeTable.getCoins(idx));
         
         // Remover de las estructuras del diagrama Astah
-        int idx = storeSegments.indexOf(location);
-        if (idx != -1) {
-            stores.remove(idx);
-            storeSegments.remove(idx);
-        }
+        removeStoreSlot(idx);
         
         // Actualizar barra de progreso
         profitBar.updateMaxProfit(getTotalInitialCoinsInStores());
@@ -204,144 +544,338 @@ public class SilkRoad {
         System.out.println("Tienda eliminada del segmento " + location + ".");
     }
     
+    /**
+     * Elimina la tienda del handle dado, sin buscarla por ubicación.
+     */
+    public void removeStoreByHandle(long handle) {
+        int slot = storeHandles.resolve(handle);
+        if (slot == -1) {
+            renderer.setOperation("removeStore");
+            System.out.println("Handle de tienda inválido: " + handle);
+            return;
+        }
+        removeStore(storeTable.getLocation(slot));
+    }
+    
+    /**
+     * @return la ubicación de la tienda del handle, o -1 si el handle ya no es válido
+     */
+    public int storeLocation(long handle) {
+        int slot = storeHandles.resolve(handle);
+        return slot == -1 ? -1 : storeTable.getLocation(slot);
+    }
+    
     public void placeRobot(int location) {
-        if (location < 0 || location >= segments.size()) {
+        placeRobotHandle(location);
+    }
+    
+    /**
+     * Igual que placeRobot, pero devuelve un handle estable del robot que
+     * sigue siendo válido aunque el robot se mueva. Se usa con
+     * moveRobotByHandle, removeRobotByHandle y robotLocation.
+     * @return el handle, o HandleTable.NONE si no se pudo colocar
+     */
+    public long placeRobotHandle(int location) {
+        renderer.setOperation("placeRobot");
+        if (location < 0 || location >= road.getLength()) {
             System.out.println("Ubicación inválida para robot: " + location);
-            return;
+            return HandleTable.NONE;
         }
         
         // Verificar que no haya ya un robot en esa ubicación
-        if (robotSegments.contains(location)) {
+        if (robotAt.get(location) != -1) {
             System.out.println("Ya hay un robot en el segmento " + location);
-            return;
+            return HandleTable.NONE;
         }
         
         // Verificar que no haya una tienda en esa ubicación
-        if (storeSegments.contains(location)) {
+        if (storeAt.get(location) != -1) {
             System.out.println("No se puede colocar robot en segmento " + location + " porque ya hay una tienda.");
-            return;
+            return HandleTable.NONE;
         }
         
-        Point pos = segments.get(location).getPosition();
-        int x = pos.x + CELL_TO_OBJECT_OFFSET;
-        int y = pos.y + CELL_TO_OBJECT_OFFSET;
-
-        Robot robot = new Robot(x, y, location);
+        int slot = robotTable.add(location);
         
         // Agregar a las estructuras del diagrama Astah
-        robots.add(robot);
-        robotSegments.add(location);
+        if (views) {
+            Point pos = positionOf(location);
+            robots.add(new Robot(pos.x + CELL_TO_OBJECT_OFFSET, pos.y + CELL_TO_OBJECT_OFFSET,
+                                 robotTable, slot, renderer));
+        }
+        if (slot == nextRobot.length) {
+            nextRobot = Arrays.copyOf(nextRobot, slot * 2);
+            robotOrder = Arrays.copyOf(robotOrder, slot * 2);
+            placedBefore = Arrays.copyOf(placedBefore, slot * 2);
+            placedAfter = Arrays.copyOf(placedAfter, slot * 2);
+            robotHandle = Arrays.copyOf(robotHandle, slot * 2);
+        }
+        robotOrder[slot] = placedRobots++;
+        placedBefore[slot] = lastPlaced;
+        placedAfter[slot] = -1;
+        if (lastPlaced == -1) {
+            firstPlaced = slot;
+        } else {
+            placedAfter[lastPlaced] = slot;
+        }
+        lastPlaced = slot;
+        robotHandle[slot] = robotHandles.allocate(slot);
+        linkRobot(slot, location);
         
         // NUEVO: Inicializar historial para este robot
-        robotMovementHistory.add(new ArrayList<Integer>());
-        robotCoinHistory.add(new ArrayList<Integer>());
+        moveHistory.addRobot(slot);
         
-        // Agregar al segmento
-        segments.get(location).placeRobot(robot);
+        // Registrar en el segmento
+        registerRobot(slot, location);
+        updateDensityRobots(location, 1);
         
-        robot.makeVisible();
+        if (views) {
+            robots.get(slot).makeVisible();
+        }
         System.out.println("Robot colocado en segmento " + location + ".");
+        return robotHandle[slot];
     }
     
     public void removeRobot(int location) {
-        if (location < 0 || location >= segments.size()) {
+        renderer.setOperation("removeRobot");
+        if (location < 0 || location >= road.getLength()) {
             System.out.println("Ubicación inválida: " + location);
             return;
         }
         
-        Segment segment = segments.get(location);
-        if (!segment.hasRobot()) {
+        int shown = registeredRobotSlot(location);
+        if (shown == -1) {
             System.out.println("No hay robot en el segmento " + location);
             return;
         }
         
-        Robot robot = segment.removeRobot();
-        robot.makeInvisible();
+        segmentRobot.set(location, -1);
+        if (views) {
+            robots.get(shown).makeInvisible();
+        }
+        updateDensityRobots(location, -1);
         
         // Remover de las estructuras del diagrama Astah
-        int idx = robotSegments.indexOf(location);
+        // (el historial correspondiente se remueve junto con el robot)
+        int idx = robotAt.get(location);
         if (idx != -1) {
-            robots.remove(idx);
-            robotSegments.remove(idx);
-            
-            // NUEVO: Remover historial correspondiente
-            robotMovementHistory.remove(idx);
-            robotCoinHistory.remove(idx);
+            removeRobotSlot(idx);
         }
         
         System.out.println("Robot eliminado del segmento " + location + ".");
     }
     
+    /**
+     * Elimina el robot del handle dado, sin buscarlo por ubicación (aunque
+     * comparta segmento con otros robots).
+     */
+    public void removeRobotByHandle(long handle) {
+        renderer.setOperation("removeRobot");
+        int idx = robotHandles.resolve(handle);
+        if (idx == -1) {
+            System.out.println("Handle de robot inválido: " + handle);
+            return;
+        }
+        int location = robotTable.getLocation(idx);
+        if (segmentRobot.get(location) == robotOrder[idx]) {
+            segmentRobot.set(location, -1);
+        }
+        if (views) {
+            robots.get(idx).makeInvisible();
+        }
+        updateDensityRobots(location, -1);
+        removeRobotSlot(idx);
+        
+        System.out.println("Robot eliminado del segmento " + location + ".");
+    }
+    
+    /**
+     * @return la ubicación actual del robot del handle, o -1 si el handle ya no es válido
+     */
+    public int robotLocation(long handle) {
+        int idx = robotHandles.resolve(handle);
+        return idx == -1 ? -1 : robotTable.getLocation(idx);
+    }
+    
     public void moveRobot(int location, int meters) {
+        renderer.setOperation("moveRobot");
         // Buscar el robot en la ubicación especificada
-        int idx = robotSegments.indexOf(location);
+        int idx = robotSlotAt(location);
         if (idx == -1) {
             System.out.println("No hay robot en el segmento " + location);
             return;
         }
+        moveRobotSlot(idx, meters);
+    }
+    
+    /**
+     * Mueve el robot del handle dado, sin buscarlo por ubicación.
+     */
+    public void moveRobotByHandle(long handle, int meters) {
+        renderer.setOperation("moveRobot");
+        int idx = robotHandles.resolve(handle);
+        if (idx == -1) {
+            System.out.println("Handle de robot inválido: " + handle);
+            return;
+        }
+        moveRobotSlot(idx, meters);
+    }
+    
+    // Mueve el robot de la posición idx en las listas
+    private void moveRobotSlot(int idx, int meters) {
+        int location = robotTable.getLocation(idx);
 
         // Calcular la nueva ubicación (ubicación actual + metros a avanzar)
         int newLocation = location + meters;
-        if (newLocation >= segments.size()) {
+        if (newLocation >= road.getLength()) {
             System.out.println("El robot no puede avanzar " + meters + " metros desde el segmento " + location + 
-                             " porque excedería el límite de la carretera (máximo segmento: " + (segments.size()-1) + ")");
+                             " porque excedería el límite de la carretera (máximo segmento: " + (road.getLength()-1) + ")");
             return;
         }
         
-        // Obtener el robot y moverlo visualmente a la nueva posición
-        Robot robot = robots.get(idx);
-        Point pos = segments.get(newLocation).getPosition();
-        int x = pos.x + CELL_TO_OBJECT_OFFSET;
-        int y = pos.y + CELL_TO_OBJECT_OFFSET;
-        robot.moveTo(x, y);
+        // Una ubicación negativa no es de la carretera (IndexOutOfBoundsException)
+        java.util.Objects.checkIndex(newLocation, road.getLength());
+        
+        // Animar el robot por la carretera hasta la nueva posición
+        if (views) {
+            showRobotMove(robots.get(idx), location, newLocation);
+        }
         
-        // Actualizar la ubicación en robotSegments
-        robotSegments.set(idx, newLocation);
+        // Actualizar la ubicación en la tabla y en el índice de segmentos
+        robotTable.setLocation(idx, newLocation);
+        unlinkRobot(idx, location);
+        linkRobot(idx, newLocation);
         
-        // Actualizar los segmentos internos (remover del actual, colocar en el nuevo)
-        segments.get(location).removeRobot();
-        segments.get(newLocation).placeRobot(robot);
+        // Actualizar los segmentos (olvidar el actual, registrar en el nuevo)
+        segmentRobot.set(location, -1);
+        registerRobot(idx, newLocation);
+        updateDensityRobots(location, -1);
+        updateDensityRobots(newLocation, 1);
 
         // NUEVO: Inicializar monedas recogidas en este movimiento
         int coinsCollectedInThisMove = 0;
         
         // Ver si hay tienda en el nuevo segmento
-        if (segments.get(newLocation).hasStore()) {
-            Store store = segments.get(newLocation).getStore();
-            System.out.println("Robot llegó a tienda en segmento " + newLocation + "Hay" + store.getCoins());
+        int storeSlot = storeAt.get(newLocation);
+        if (storeSlot != -1) {
+            int available = storeTable.getCoins(storeSlot);
+            System.out.println("Robot llegó a tienda en segmento " + newLocation + "Hay" + available);
             
-            if (store.getCoins() > 0 && robot.canCollectMore()) {
-                int available = store.getCoins();
-                int canCollect = Math.min(available, robot.getRemainingCapacity());
-
-                if (canCollect > 0) {
-                    robot.addCoins(canCollect);
-                    store.setCoins(store.getCoins() - canCollect);
-                    
-                    // NUEVO: Registrar monedas recogidas en este movimiento específico
-                    coinsCollectedInThisMove = canCollect;
-                    
-                    // Actualizar barra de progreso después de recoger monedas
-                    profitBar.updateMaxProfit(getTotalInitialCoinsInStores());
-                    profitBar.updateCurrentProfit(getTotalCoinsCollected());
-                }
+            // Los robots no tienen límite de capacidad (ver Robot.canCollectMore):
+            // se llevan todo lo que haya
+            if (available > 0) {
+                robotTable.addCoins(idx, available);
+                setStoreCoins(storeSlot, 0);
+                updateDensityCoins(newLocation, -available);
+                totalStoreCoins -= available;
+                totalCollectedCoins += available;
+                
+                // NUEVO: Registrar monedas recogidas en este movimiento específico
+                coinsCollectedInThisMove = available;
+                
+                // Actualizar barra de progreso después de recoger monedas
+                profitBar.updateMaxProfit(getTotalInitialCoinsInStores());
+                profitBar.updateCurrentProfit(getTotalCoinsCollected());
             }
         }
         
         // NUEVO: Guardar historial de este movimiento
-        robotMovementHistory.get(idx).add(Math.abs(meters));  // Metros movidos (siempre positivo)
-        robotCoinHistory.get(idx).add(coinsCollectedInThisMove);  // Monedas recogidas en este movimiento
+        // (metros movidos, siempre positivo, y monedas recogidas en este movimiento)
+        moveHistory.append(idx, Math.abs(meters), coinsCollectedInThisMove);
         
         // Registrar el costo del movimiento
         totalMovementCosts += Math.abs(meters);
         
     }
 
+    /*
+     * Mueve todos los robots automáticamente a tiendas con monedas, a lo sumo
+     * un robot por tienda, con la asignación que da la mayor ganancia
+     * (monedas recogidas menos metros recorridos; ver RobotAssignment).
+     * Los robots que no ganarían nada se quedan en su lugar.
+     */
+    public void moveRobots() {
+        renderer.setOperation("moveRobots");
+        System.out.println("=== Movimiento automático de robots ===");
+        
+        if (robotTable.size() == 0) {
+            System.out.println("No hay robots para mover");
+            return;
+        }
+        
+        if (storeTable.size() == 0) {
+            System.out.println("No hay tiendas disponibles");
+            return;
+        }
+        
+        // Robots por ubicación (en orden de colocación si coinciden) y tiendas con monedas
+        int[] robotSlots = new int[robotTable.size()];
+        int[] robotLocations = new int[robotTable.size()];
+        int robotRows = 0;
+        for (int location = robotAt.next(0); location != -1; location = robotAt.next(location + 1)) {
+            for (int idx = robotAt.get(location); idx != -1; idx = nextRobot[idx]) {
+                robotSlots[robotRows] = idx;
+                robotLocations[robotRows++] = location;
+            }
+        }
+        int[] storeLocations = new int[storeTable.size()];
+        int[] storeCoins = new int[storeTable.size()];
+        int storeRows = 0;
+        for (int location = storeAt.next(0); location != -1; location = storeAt.next(location + 1)) {
+            int coins = storeTable.getCoins(storeAt.get(location));
+            if (coins > 0) { // Solo tiendas con monedas
+                storeLocations[storeRows] = location;
+                storeCoins[storeRows++] = coins;
+            }
+        }
+        
+        if (storeRows == 0) {
+            System.out.println("No hay tiendas con monedas disponibles");
+            return;
+        }
+        
+        int[] target = RobotAssignment.assign(robotLocations,
+                                              Arrays.copyOf(storeLocations, storeRows),
+                                              Arrays.copyOf(storeCoins, storeRows));
+        
+        // Todos los movimientos en un solo repintado. Un robot asignado a la
+        // tienda de su mismo segmento "se mueve" 0 metros para recogerla
+        int staying = 0;
+        renderer.beginBatch();
+        try {
+            for (int i = 0; i < robotRows; i++) {
+                if (target[i] == -1) {
+                    staying++;
+                    continue;
+                }
+                int storeLocation = storeLocations[target[i]];
+                System.out.println("Plan: Robot en segmento " + robotLocations[i] + 
+                                 " → Tienda en segmento " + storeLocation + 
+                                 " (distancia: " + Math.abs(storeLocation - robotLocations[i]) +
+                                 ", monedas: " + storeCoins[target[i]] + ")");
+                moveRobotSlot(robotSlots[i], storeLocation - robotLocations[i]);
+            }
+        } finally {
+            renderer.commitBatch();
+        }
+        
+        // Informar sobre robots sin asignar
+        if (staying > 0) {
+            System.out.println("Robots sin tienda asignada: " + staying);
+            for (int i = 0; i < robotRows; i++) {
+                if (target[i] == -1) {
+                    System.out.println("  Robot en segmento " + robotLocations[i] + " se queda en su lugar");
+                }
+            }
+        }
+    }
+    
     /*
      * Mueve todos los robots automáticamente hacia las tiendas más cercanas con monedas
      * Cada robot va a UNA tienda diferente, asignando el robot más cercano a cada tienda
+     * (la asignación original, voraz: no mira las monedas ni el costo de moverse)
      */
-    public void moveRobots() {
+    public void moveRobotsGreedy() {
+        renderer.setOperation("moveRobots");
         System.out.println("=== Movimiento automático de robots ===");
         
         // Obtener estado actual
@@ -379,60 +913,65 @@ public class SilkRoad {
             return;
         }
         
-        // ASIGNACIÓN INTELIGENTE: Un robot por tienda
-        while (!availableRobots.isEmpty() && !availableStores.isEmpty()) {
-            int bestRobotIndex = -1;
-            int bestStoreIndex = -1;
-            int minDistance = Integer.MAX_VALUE;
+        // ASIGNACIÓN INTELIGENTE: Un robot por tienda (todos los movimientos en un solo repintado)
+        renderer.beginBatch();
+        try {
+            while (!availableRobots.isEmpty() && !availableStores.isEmpty()) {
+                int bestRobotIndex = -1;
+                int bestStoreIndex = -1;
+                int minDistance = Integer.MAX_VALUE;
             
-            // Encontrar la combinación robot-tienda con menor distancia
-            for (int i = 0; i < availableRobots.size(); i++) {
-                int robotIndex = availableRobots.get(i);
-                int robotLocation = robotsData[robotIndex][0];
+                // Encontrar la combinación robot-tienda con menor distancia
+                for (int i = 0; i < availableRobots.size(); i++) {
+                    int robotIndex = availableRobots.get(i);
+                    int robotLocation = robotsData[robotIndex][0];
                 
-                for (int j = 0; j < availableStores.size(); j++) {
-                    int storeIndex = availableStores.get(j);
-                    int storeLocation = storesData[storeIndex][0];
+                    for (int j = 0; j < availableStores.size(); j++) {
+                        int storeIndex = availableStores.get(j);
+                        int storeLocation = storesData[storeIndex][0];
                     
-                    int distance = Math.abs(storeLocation - robotLocation);
+                        int distance = Math.abs(storeLocation - robotLocation);
                     
-                    if (distance < minDistance) {
-                        minDistance = distance;
-                        bestRobotIndex = i;
-                        bestStoreIndex = j;
+                        if (distance < minDistance) {
+                            minDistance = distance;
+                            bestRobotIndex = i;
+                            bestStoreIndex = j;
+                        }
                     }
                 }
-            }
             
-            // Mover el robot más cercano a su tienda asignada
-            if (bestRobotIndex != -1 && bestStoreIndex != -1) {
-                int robotIndex = availableRobots.get(bestRobotIndex);
-                int storeIndex = availableStores.get(bestStoreIndex);
+                // Mover el robot más cercano a su tienda asignada
+                if (bestRobotIndex != -1 && bestStoreIndex != -1) {
+                    int robotIndex = availableRobots.get(bestRobotIndex);
+                    int storeIndex = availableStores.get(bestStoreIndex);
                 
-                int robotLocation = robotsData[robotIndex][0];
-                int storeLocation = storesData[storeIndex][0];
-                int storeCoins = storesData[storeIndex][1];
+                    int robotLocation = robotsData[robotIndex][0];
+                    int storeLocation = storesData[storeIndex][0];
+                    int storeCoins = storesData[storeIndex][1];
                 
-                int distance = Math.abs(storeLocation - robotLocation);
+                    int distance = Math.abs(storeLocation - robotLocation);
                 
-                if (distance > 0) {
-                    int direction = storeLocation > robotLocation ? distance : -distance;
+                    if (distance > 0) {
+                        int direction = storeLocation > robotLocation ? distance : -distance;
                     
-                    System.out.println("Plan: Robot en segmento " + robotLocation + 
-                                     " → Tienda en segmento " + storeLocation + 
-                                     " (distancia: " + distance + ", monedas: " + storeCoins + ")");
+                        System.out.println("Plan: Robot en segmento " + robotLocation + 
+                                         " → Tienda en segmento " + storeLocation + 
+                                         " (distancia: " + distance + ", monedas: " + storeCoins + ")");
                     
-                    moveRobot(robotLocation, direction);
+                        moveRobot(robotLocation, direction);
+                    } else {
+                        System.out.println("Robot en segmento " + robotLocation + " ya está en su tienda asignada");
+                    }
+                
+                    // Remover robot y tienda de las listas disponibles
+                    availableRobots.remove(bestRobotIndex);
+                    availableStores.remove(bestStoreIndex);
                 } else {
-                    System.out.println("Robot en segmento " + robotLocation + " ya está en su tienda asignada");
+                    break; // No se pudo encontrar asignación
                 }
-                
-                // Remover robot y tienda de las listas disponibles
-                availableRobots.remove(bestRobotIndex);
-                availableStores.remove(bestStoreIndex);
-            } else {
-                break; // No se pudo encontrar asignación
             }
+        } finally {
+            renderer.commitBatch();
         }
         
         // Informar sobre robots sin asignar
@@ -446,31 +985,38 @@ public class SilkRoad {
     }
     
     public void returnRobots() {
-        // Devolver robots a su posición inicial
-        for (int i = 0; i < robots.size(); i++) {
-            Robot robot = robots.get(i);
-            int currentLocation = robotSegments.get(i);
-            int initialLocation = robot.getInitialSegment();
-            
-            // Remover del segmento actual
-            segments.get(currentLocation).removeRobot();
-            
-            // Colocar en segmento inicial
-            segments.get(initialLocation).placeRobot(robot);
-            robotSegments.set(i, initialLocation);
-            
-            // Mover visualmente
-            Point pos = segments.get(initialLocation).getPosition();
-            int x = pos.x + CELL_TO_OBJECT_OFFSET;
-            int y = pos.y + CELL_TO_OBJECT_OFFSET;
-            robot.moveTo(x, y);
+        renderer.setOperation("returnRobots");
+        // Devolver robots a su posición inicial (un solo repintado para todos)
+        // (en orden de colocación: el segmento guarda un solo robot y el
+        // orden decide cuál queda registrado cuando varios coinciden)
+        renderer.beginBatch();
+        try {
+            for (int i = firstPlaced; i != -1; i = placedAfter[i]) {
+                int currentLocation = robotTable.getLocation(i);
+                int initialLocation = robotTable.getInitialSegment(i);
+                
+                // Olvidar en el segmento actual
+                segmentRobot.set(currentLocation, -1);
+                
+                // Registrar en el segmento inicial
+                registerRobot(i, initialLocation);
+                robotTable.setLocation(i, initialLocation);
+                unlinkRobot(i, currentLocation);
+                linkRobot(i, initialLocation);
+                updateDensityRobots(currentLocation, -1);
+                updateDensityRobots(initialLocation, 1);
+                
+                // Mover visualmente, de regreso por la carretera
+                if (views) {
+                    showRobotMove(robots.get(i), currentLocation, initialLocation);
+                }
+            }
+        } finally {
+            renderer.commitBatch();
         }
         
         // NUEVO: Limpiar historial de movimientos del día
-        for (int i = 0; i < robotMovementHistory.size(); i++) {
-            robotMovementHistory.get(i).clear();
-            robotCoinHistory.get(i).clear();
-        }
+        moveHistory.newDay();
         
         // Resetear costos de movimiento del día
         totalMovementCosts = 0;
@@ -479,8 +1025,18 @@ public class SilkRoad {
     }
     
     public void resupplyStores() {
-        for (Store s : stores) {
-            s.restock();
+        renderer.setOperation("resupplyStores");
+        renderer.beginBatch();
+        try {
+            for (int i = 0; i < storeTable.size(); i++) {
+                int before = storeTable.getCoins(i);
+                restockStore(i);
+                int delta = storeTable.getCoins(i) - before;
+                updateDensityCoins(storeTable.getLocation(i), delta);
+                totalStoreCoins += delta;
+            }
+        } finally {
+            renderer.commitBatch();
         }
         
         // Actualizar barra de progreso después de reabastecer
@@ -491,28 +1047,42 @@ public class SilkRoad {
     }
     
     public void reboot() {
+        renderer.setOperation("reboot");
         // Hacer invisibles los objetos actuales
-        for (Store s : stores) s.makeInvisible();
-        for (Robot r : robots) r.makeInvisible();
+        renderer.beginBatch();
+        try {
+            for (Store s : stores) s.makeInvisible();
+            for (Robot r : robots) r.makeInvisible();
+        } finally {
+            renderer.commitBatch();
+        }
         
         // Limpiar estructuras del diagrama Astah
         stores.clear();
-        storeSegments.clear();
         robots.clear();
-        robotSegments.clear();
+        storeTable.clear();
+        robotTable.clear();
+        storeAt.clear();
+        robotAt.clear();
+        storeHandles.clear();
+        robotHandles.clear();
+        firstPlaced = -1;
+        lastPlaced = -1;
         
         // NUEVO: Limpiar historial de movimientos
-        robotMovementHistory.clear();
-        robotCoinHistory.clear();
+        moveHistory.newDay();
         
         // Limpiar segmentos
-        for (Segment segment : segments) {
-            segment.removeStore();
-            segment.removeRobot();
+        segmentRobot.clear();
+        if (densityMap != null) {
+            densityMap.clearEntities();
         }
         
-        // Resetear costos de movimiento
+        // Resetear costos de movimiento y totales
         totalMovementCosts = 0;
+        totalInitialStoreCoins = 0;
+        totalStoreCoins = 0;
+        totalCollectedCoins = 0;
     
         // Resetear barra de progreso
         profitBar.reset();
@@ -525,32 +1095,34 @@ public class SilkRoad {
 
     
     public int profit() {
-        int totalEarned = 0;
-        for (Robot r : robots) {
-            totalEarned += r.getDailyCoins();
-        }
         // Profit = ganancias - costos de movimiento
-        return totalEarned - totalMovementCosts;
+        return totalCollectedCoins - totalMovementCosts;
+    }
+    
+    /**
+     * @return las monedas que quedan en todas las tiendas
+     */
+    public int totalStoreCoins() {
+        return totalStoreCoins;
+    }
+    
+    /**
+     * @return las monedas recogidas por todos los robots en el día
+     */
+    public int totalCollectedCoins() {
+        return totalCollectedCoins;
     }
     
     public int[][] stores() {
         // Crear matriz con [ubicación, tenges] para cada tienda
-        int[][] result = new int[stores.size()][2];
-        
-        // Crear lista temporal para ordenar por ubicación
-        ArrayList<Integer> indices = new ArrayList<>();
-        for (int i = 0; i < stores.size(); i++) {
-            indices.add(i);
-        }
-        
-        // Ordenar índices por ubicación (de menor a mayor)
-        indices.sort((a, b) -> Integer.compare(storeSegments.get(a), storeSegments.get(b)));
-        
-        // Llenar la matriz ordenada
-        for (int i = 0; i < indices.size(); i++) {
-            int idx = indices.get(i);
-            result[i][0] = storeSegments.get(idx);      // ubicación
-            result[i][1] = stores.get(idx).getCoins();  // tenges
+        int[][] result = new int[storeTable.size()][2];
+        
+        // Recorrer los segmentos con tienda, que ya están en orden de ubicación
+        int i = 0;
+        for (int location = storeAt.next(0); location != -1; location = storeAt.next(location + 1)) {
+            result[i][0] = location;                                 // ubicación
+            result[i][1] = storeTable.getCoins(storeAt.get(location)); // tenges
+            i++;
         }
         
         return result;
@@ -558,49 +1130,220 @@ public class SilkRoad {
     
     public int[][] robots() {
         // Crear matriz con [ubicación, tenges_recolectados] para cada robot
-        int[][] result = new int[robots.size()][2];
-        
-        // Crear lista temporal para ordenar por ubicación
-        ArrayList<Integer> indices = new ArrayList<>();
-        for (int i = 0; i < robots.size(); i++) {
-            indices.add(i);
-        }
-        
-        // Ordenar índices por ubicación (de menor a mayor)
-        indices.sort((a, b) -> Integer.compare(robotSegments.get(a), robotSegments.get(b)));
-        
-        // Llenar la matriz ordenada
-        for (int i = 0; i < indices.size(); i++) {
-            int idx = indices.get(i);
-            result[i][0] = robotSegments.get(idx);           // ubicación actual
-            result[i][1] = robots.get(idx).getDailyCoins();  // tenges recolectados
+        int[][] result = new int[robotTable.size()][2];
+        
+        // Recorrer los segmentos con robots en orden de ubicación; la cadena
+        // de cada segmento ya está en orden de colocación
+        int i = 0;
+        for (int location = robotAt.next(0); location != -1; location = robotAt.next(location + 1)) {
+            for (int idx = robotAt.get(location); idx != -1; idx = nextRobot[idx]) {
+                result[i][0] = location;                         // ubicación actual
+                result[i][1] = robotTable.getDailyCoins(idx);  // tenges recolectados
+                i++;
+            }
         }
         
         return result;
     }
 
+    
+    // =============================
+    // CONSULTAS SIN CREAR ARREGLOS
+    // =============================
+    // Para quien consulta el estado en cada tick: recorren los mismos datos
+    // que stores(), robots(), emptiedStores() y profitPerMove(), en el mismo
+    // orden, pero entregan cada fila a un SegmentVisitor o la escriben en un
+    // arreglo plano del llamador (fila i en buffer[ancho*i], buffer[ancho*i+1], ...).
+    // Los métodos "Into" devuelven cuántas filas tiene el resultado; si el
+    // arreglo no alcanza solo llenan las primeras filas que caben, y el
+    // llamador puede volver a pedirlas con un arreglo más grande.
+    
+    /**
+     * Entrega cada tienda como (ubicación, tenges), de menor a mayor ubicación.
+     * @param  visitor  quien recibe las filas
+     */
+    public void forEachStore(SegmentVisitor visitor) {
+        for (int location = storeAt.next(0); location != -1; location = storeAt.next(location + 1)) {
+            visitor.visit(location, storeTable.getCoins(storeAt.get(location)));
+        }
+    }
+    
+    /**
+     * Entrega cada robot como (ubicación, tenges recolectados), de menor a
+     * mayor ubicación y, en la misma ubicación, en orden de colocación.
+     * @param  visitor  quien recibe las filas
+     */
+    public void forEachRobot(SegmentVisitor visitor) {
+        for (int location = robotAt.next(0); location != -1; location = robotAt.next(location + 1)) {
+            for (int idx = robotAt.get(location); idx != -1; idx = nextRobot[idx]) {
+                visitor.visit(location, robotTable.getDailyCoins(idx));
+            }
+        }
+    }
+    
+    /**
+     * Entrega cada tienda vaciada al menos una vez como (ubicación, veces
+     * vaciada), de menor a mayor ubicación.
+     * @param  visitor  quien recibe las filas
+     */
+    public void forEachEmptiedStore(SegmentVisitor visitor) {
+        for (int location = storeAt.next(0); location != -1; location = storeAt.next(location + 1)) {
+            int timesEmptied = storeTable.getTimesEmptied(storeAt.get(location));
+            if (timesEmptied > 0) {
+                visitor.visit(location, timesEmptied);
+            }
+        }
+    }
+    
+    /**
+     * Escribe las filas de stores() en buffer, dos enteros por fila.
+     * @param  buffer  dónde se escriben las filas
+     * @return cuántas filas tiene el resultado
+     */
+    public int storesInto(int[] buffer) {
+        int rows = 0;
+        for (int location = storeAt.next(0); location != -1; location = storeAt.next(location + 1)) {
+            if (2 * rows + 1 < buffer.length) {
+                buffer[2 * rows] = location;
+                buffer[2 * rows + 1] = storeTable.getCoins(storeAt.get(location));
+            }
+            rows++;
+        }
+        return rows;
+    }
+    
+    /**
+     * Escribe las filas de robots() en buffer, dos enteros por fila.
+     * @param  buffer  dónde se escriben las filas
+     * @return cuántas filas tiene el resultado
+     */
+    public int robotsInto(int[] buffer) {
+        int rows = 0;
+        for (int location = robotAt.next(0); location != -1; location = robotAt.next(location + 1)) {
+            for (int idx = robotAt.get(location); idx != -1; idx = nextRobot[idx]) {
+                if (2 * rows + 1 < buffer.length) {
+                    buffer[2 * rows] = location;
+                    buffer[2 * rows + 1] = robotTable.getDailyCoins(idx);
+                }
+                rows++;
+            }
+        }
+        return rows;
+    }
+    
+    /**
+     * Escribe las filas de emptiedStores() en buffer, dos enteros por fila.
+     * @param  buffer  dónde se escriben las filas
+     * @return cuántas filas tiene el resultado
+     */
+    public int emptiedStoresInto(int[] buffer) {
+        int rows = 0;
+        for (int location = storeAt.next(0); location != -1; location = storeAt.next(location + 1)) {
+            int timesEmptied = storeTable.getTimesEmptied(storeAt.get(location));
+            if (timesEmptied > 0) {
+                if (2 * rows + 1 < buffer.length) {
+                    buffer[2 * rows] = location;
+                    buffer[2 * rows + 1] = timesEmptied;
+                }
+                rows++;
+            }
+        }
+        return rows;
+    }
+    
+    /**
+     * @return cuántos enteros tiene cada fila de profitPerMove(): la
+     *         ubicación más una columna por movimiento del robot que más se
+     *         ha movido (2 si ningún robot tiene movimientos registrados)
+     */
+    public int profitPerMoveWidth() {
+        int maxMovements = maxMovements();
+        return maxMovements == 0 ? 2 : maxMovements + 1;
+    }
+    
+    /**
+     * Escribe las filas de profitPerMove() en buffer, profitPerMoveWidth()
+     * enteros por fila, sin imprimir nada.
+     * @param  buffer  dónde se escriben las filas
+     * @return cuántas filas tiene el resultado
+     */
+    public int profitPerMoveInto(int[] buffer) {
+        int maxMovements = maxMovements();
+        int width = maxMovements == 0 ? 2 : maxMovements + 1;
+        int rows = 0;
+        for (int location = robotAt.next(0); location != -1; location = robotAt.next(location + 1)) {
+            for (int idx = robotAt.get(location); idx != -1; idx = nextRobot[idx]) {
+                int start = width * rows;
+                if (start + width <= buffer.length) {
+                    buffer[start] = location;
+                    if (maxMovements == 0) {
+                        // Sin historial: un solo movimiento desde la ubicación inicial
+                        buffer[start + 1] = robotTable.getDailyCoins(idx) - Math.abs(location - robotTable.getInitialSegment(idx));
+                    }
+                    else {
+                        int column = start + 1;
+                        for (int move = moveHistory.firstMove(idx); move != -1; move = moveHistory.nextMove(move)) {
+                            buffer[column++] = moveHistory.coins(move) - moveHistory.meters(move);
+                        }
+                        Arrays.fill(buffer, column, start + width, 0);
+                    }
+                }
+                rows++;
+            }
+        }
+        return rows;
+    }
+    
+    private int maxMovements() {
+        int maxMovements = 0;
+        for (int i = 0; i < robotTable.size(); i++) {
+            maxMovements = Math.max(maxMovements, moveHistory.count(i));
+        }
+        return maxMovements;
+    }
+    
+    /**
+     * @return true si hay una tienda o algún robot en la ubicación dada
+     */
+    public boolean isOccupied(int location) {
+        return location >= 0 && location < road.getLength()
+               && (storeAt.get(location) != -1 || robotAt.get(location) != -1);
+    }
+    
+    /**
+     * @return la ubicación más alta con tienda o robot, o -1 si no hay ninguno
+     */
+    public int lastOccupiedLocation() {
+        return Math.max(storeAt.last(), robotAt.last());
+    }
+    
+    public int storeCount() {
+        return storeTable.size();
+    }
+    
+    public int robotCount() {
+        return robotTable.size();
+    }
 
     public int[][] emptiedStores() {
-        ArrayList<int[]> emptiedList = new ArrayList<>();
+        // Contar primero las tiendas vaciadas al menos una vez (sin importar su estado actual)
+        int count = 0;
+        for (int i = 0; i < storeTable.size(); i++) {
+            if (storeTable.getTimesEmptied(i) > 0) {
+                count++;
+            }
+        }
         
-        // Revisar todas las tiendas
-        for (int i = 0; i < stores.size(); i++) {
-            Store store = stores.get(i);
-            int location = storeSegments.get(i);
-            int timesEmptied = store.getTimesEmptied();
-            
-            // Si la tienda ha sido vaciada al menos una vez (sin importar su estado actual)
+        // Recorrer los segmentos con tienda, que ya están en orden de ubicación
+        int[][] result = new int[count][];
+        int i = 0;
+        for (int location = storeAt.next(0); location != -1; location = storeAt.next(location + 1)) {
+            int timesEmptied = storeTable.getTimesEmptied(storeAt.get(location));
             if (timesEmptied > 0) {
-                emptiedList.add(new int[]{location, timesEmptied});
+                result[i++] = new int[]{location, timesEmptied};
             }
         }
         
-        // Convertir a arreglo y ordenar por ubicación de menor a mayor
-        int[][] result = emptiedList.toArray(new int[emptiedList.size()][]);
-        
-        // Ordenar por ubicación (columna 0) de menor a mayor
-        java.util.Arrays.sort(result, (a, b) -> Integer.compare(a[0], b[0]));
-        
         return result;
     }
 
@@ -608,30 +1351,13 @@ public class SilkRoad {
     public int[][] profitPerMove() {
         System.out.println("Ganancias :)");
         
-        if (robots.size() == 0) {
+        if (robotTable.size() == 0) {
             System.out.println("No hay robots");
             return new int[0][3]; // Sin robots, matriz vacía
         }
         
         // Verificar si hay historial
-        boolean hasMovements = false;
-        for (int i = 0; i < robotMovementHistory.size(); i++) {
-            if (robotMovementHistory.get(i).size() > 0) {
-                hasMovements = true;
-                // Mostrar detalles con ubicaciones
-                Robot robot = robots.get(i);
-                int currentLocation = robot.getInitialSegment(); // Empezar desde ubicación inicial
-                
-                for (int j = 0; j < robotMovementHistory.get(i).size(); j++) {
-                    int meters = robotMovementHistory.get(i).get(j);
-                    int coins = robotCoinHistory.get(i).get(j);
-                    
-                    // Calcular a dónde llegó en este movimiento
-                    currentLocation += meters; // Asumir movimientos hacia adelante
-                    
-                }
-            }
-        }
+        boolean hasMovements = maxMovements() > 0;
         
         if (!hasMovements) {
             System.out.println("PROBLEMA: No hay historial de movimientos");
@@ -641,14 +1367,14 @@ public class SilkRoad {
             System.out.println("Usando método fallback...");
             ArrayList<int[]> profitList = new ArrayList<>();
             
-            for (int i = 0; i < robots.size(); i++) {
-                int currentLocation = robotSegments.get(i);
-                Robot robot = robots.get(i);
-                int initialLocation = robot.getInitialSegment();
-                int totalCoins = robot.getDailyCoins();
+            int robotNumber = 0;
+            for (int slot = firstPlaced; slot != -1; slot = placedAfter[slot], robotNumber++) {
+                int currentLocation = robotTable.getLocation(slot);
+                int initialLocation = robotTable.getInitialSegment(slot);
+                int totalCoins = robotTable.getDailyCoins(slot);
                 int totalMeters = Math.abs(currentLocation - initialLocation);
                 
-                System.out.println("Robot " + i + " - Ubicación inicial: " + initialLocation + 
+                System.out.println("Robot " + robotNumber + " - Ubicación inicial: " + initialLocation + 
                                  ", llegó a ubicación: " + currentLocation + 
                                  ", monedas recogidas: " + totalCoins);
                 
@@ -683,31 +1409,23 @@ public class SilkRoad {
         }
         
         // Encontrar el máximo número de movimientos para dimensionar la matriz
-        int maxMovements = 0;
-        for (int i = 0; i < robotMovementHistory.size(); i++) {
-            int movements = robotMovementHistory.get(i).size();
-            if (movements > maxMovements) {
-                maxMovements = movements;
-            }
-        }
+        int maxMovements = maxMovements();
         
         ArrayList<int[]> profitList = new ArrayList<>();
         
-        // Procesar cada robot
-        for (int i = 0; i < robots.size(); i++) {
-            int currentLocation = robotSegments.get(i);
+        // Procesar cada robot, en orden de colocación
+        for (int slot = firstPlaced; slot != -1; slot = placedAfter[slot]) {
+            int currentLocation = robotTable.getLocation(slot);
             
             // Crear array: [ubicación, ganancia_mov1, ganancia_mov2, ...]
             int[] robotProfits = new int[maxMovements + 1];
             robotProfits[0] = currentLocation; // Primera columna es ubicación actual
             
             // Calcular ganancia por cada movimiento realizado
-            ArrayList<Integer> movements = robotMovementHistory.get(i);
-            ArrayList<Integer> coins = robotCoinHistory.get(i);
-            
-            for (int moveIndex = 0; moveIndex < movements.size(); moveIndex++) {
-                int metersMovedInThisMove = movements.get(moveIndex);
-                int coinsCollectedInThisMove = coins.get(moveIndex);
+            int moveIndex = 0;
+            for (int move = moveHistory.firstMove(slot); move != -1; move = moveHistory.nextMove(move), moveIndex++) {
+                int metersMovedInThisMove = moveHistory.meters(move);
+                int coinsCollectedInThisMove = moveHistory.coins(move);
                 
                 // Ganancia = monedas recogidas - costo del movimiento
                 int profitThisMove = coinsCollectedInThisMove - metersMovedInThisMove;
@@ -718,7 +1436,7 @@ public class SilkRoad {
             }
             
             // Llenar movimientos no realizados con 0
-            for (int moveIndex = movements.size(); moveIndex < maxMovements; moveIndex++) {
+            for (; moveIndex < maxMovements; moveIndex++) {
                 robotProfits[moveIndex + 1] = 0;
             }
             
@@ -747,35 +1465,43 @@ public class SilkRoad {
     }
     
     public void makeVisible() {
-        road.makeVisible();
-        for (Store s : stores) s.makeVisible();
-        for (Robot r : robots) r.makeVisible();
-        
-        // Mostrar barra de progreso
-        profitBar.makeVisible();
+        renderer.setOperation("makeVisible");
+        // Toda la escena se pinta en un solo repintado
+        renderer.beginBatch();
+        try {
+            road.makeVisible();
+            for (Store s : stores) s.makeVisible();
+            for (Robot r : robots) r.makeVisible();
+            
+            // Mostrar barra de progreso
+            profitBar.makeVisible();
+        } finally {
+            renderer.commitBatch();
+        }
     }
     
     public void makeInvisible() {
-        road.makeInvisible();
-        for (Store s : stores) s.makeInvisible();
-        for (Robot r : robots) r.makeInvisible();
-        
-        // Ocultar barra de progreso
-        profitBar.makeInvisible();
+        renderer.setOperation("makeInvisible");
+        renderer.beginBatch();
+        try {
+            road.makeInvisible();
+            for (Store s : stores) s.makeInvisible();
+            for (Robot r : robots) r.makeInvisible();
+            
+            // Ocultar barra de progreso
+            profitBar.makeInvisible();
+        } finally {
+            renderer.commitBatch();
+        }
     }
     
     public void finish() {
-        road.makeInvisible();
-        for (Store s : stores) s.makeInvisible();
-        for (Robot r : robots) r.makeInvisible();
-        
-        // Ocultar barra de progreso
-        profitBar.makeInvisible();
+        makeInvisible();
         
         System.out.println("SilkRoad terminado.");
     }
     
     public boolean ok() {
-        return road != null && stores != null && robots != null && segments != null;
+        return road != null && stores != null && robots != null && segmentRobot != null;
     }
 }
\ No newline at end of file
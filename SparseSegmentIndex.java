@@ -0,0 +1,149 @@
+import java.util.Arrays;
+
+/**
+ * SparseSegmentIndex guarda solo los segmentos ocupados, en una tabla hash
+ * de enteros con direccionamiento abierto (sin objetos por entrada). Para
+ * recorrerlos en orden mantiene además sus ubicaciones en un LocationSet,
+ * que se actualiza al ocuparse o vaciarse un segmento en tiempo constante
+ * (a lo sumo seis palabras); cambiar la posición de un segmento ya ocupado
+ * no lo toca. Así recorrer nunca ordena y ninguna operación corre datos.
+ * La memoria depende de la cantidad de segmentos ocupados y no del largo
+ * de la carretera.
+ *
+ * @author  SilkRoad
+ * @version 1.0
+ */
+public class SparseSegmentIndex implements SegmentIndex
+{
+    private static final int INITIAL_CAPACITY = 16;
+
+    // Tabla hash: keys[i] == -1 marca una casilla libre
+    private int[] keys;
+    private int[] values;
+    private int size;
+
+    // Ubicaciones ocupadas, para recorrerlas en orden
+    private HeapLocationSet occupied;
+
+    /**
+     * Crea un índice vacío.
+     */
+    public SparseSegmentIndex()
+    {
+        clear();
+    }
+
+    @Override
+    public int get(int location)
+    {
+        int mask = keys.length - 1;
+        for(int i = hash(location) & mask; keys[i] != -1; i = (i + 1) & mask) {
+            if(keys[i] == location) {
+                return values[i];
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public void set(int location, int slot)
+    {
+        if(location < 0) {
+            throw new IndexOutOfBoundsException("Ubicación inválida: " + location);
+        }
+        if(slot == -1) {
+            remove(location);
+            return;
+        }
+        int mask = keys.length - 1;
+        int i = hash(location) & mask;
+        while(keys[i] != -1) {
+            if(keys[i] == location) {
+                values[i] = slot;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = location;
+        values[i] = slot;
+        occupied.add(location);
+        size++;
+        if(2 * size > keys.length) {
+            resize(keys.length * 2);
+        }
+    }
+
+    @Override
+    public int next(int from)
+    {
+        return occupied.next(from);
+    }
+
+    @Override
+    public int last()
+    {
+        return occupied.last();
+    }
+
+    @Override
+    public void clear()
+    {
+        keys = new int[INITIAL_CAPACITY];
+        values = new int[INITIAL_CAPACITY];
+        Arrays.fill(keys, -1);
+        size = 0;
+        occupied = new HeapLocationSet();
+    }
+
+    // Vacía la casilla de la ubicación corriendo hacia atrás las que la siguen
+    private void remove(int location)
+    {
+        int mask = keys.length - 1;
+        int i = hash(location) & mask;
+        while(keys[i] != location) {
+            if(keys[i] == -1) {
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        int gap = i;
+        for(int j = (gap + 1) & mask; keys[j] != -1; j = (j + 1) & mask) {
+            int home = hash(keys[j]) & mask;
+            // la casilla j puede ocupar el hueco si su casilla ideal no está entre gap y j
+            if(((j - home) & mask) >= ((j - gap) & mask)) {
+                keys[gap] = keys[j];
+                values[gap] = values[j];
+                gap = j;
+            }
+        }
+        keys[gap] = -1;
+        occupied.remove(location);
+        size--;
+    }
+
+    private void resize(int capacity)
+    {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new int[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, -1);
+        int mask = capacity - 1;
+        for(int k = 0; k < oldKeys.length; k++) {
+            if(oldKeys[k] != -1) {
+                int i = hash(oldKeys[k]) & mask;
+                while(keys[i] != -1) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[k];
+                values[i] = oldValues[k];
+            }
+        }
+    }
+
+    private static int hash(int location)
+    {
+        int h = location * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,131 @@
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * SparseSegmentIndexCheck compara SparseSegmentIndex y OffHeapSegmentIndex
+ * con un TreeMap durante operaciones al azar. Cada ronda llena el índice
+ * hasta miles de segmentos, así la tabla se duplica varias veces, y luego
+ * lo vacía mezclando altas, cambios y bajas. Las ubicaciones salen a veces
+ * de un rango corto (muchas colisiones y corrimientos al borrar) y a veces
+ * de uno largo. Tras cada operación revisa get y last, y cada tanto
+ * recorre todo el índice con next para confirmar el orden. Una de las
+ * rondas termina con clear y la siguiente reutiliza el índice.
+ *
+ * Uso: java SparseSegmentIndexCheck [rondas] [semilla]
+ *
+ * @author  SilkRoad
+ * @version 1.0
+ */
+public class SparseSegmentIndexCheck
+{
+    private static final int MAX_SIZE = 5000;
+
+    private static int failures;
+
+    private SparseSegmentIndexCheck()
+    {
+    }
+
+    public static void main(String[] args)
+    {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 6;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 1;
+        check("SparseSegmentIndex", new SparseSegmentIndex(), rounds, new Random(seed));
+        check("OffHeapSegmentIndex", new OffHeapSegmentIndex(null, null), rounds, new Random(seed));
+        System.out.println(failures == 0 ? "ok (" + rounds + " rondas)" : failures + " fallas");
+        if(failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static void check(String name, SegmentIndex index, int rounds, Random random)
+    {
+        TreeMap<Integer, Integer> model = new TreeMap<Integer, Integer>();
+        for(int round = 0; round < rounds; round++) {
+            int range = round % 2 == 0 ? 2 * MAX_SIZE : Integer.MAX_VALUE;
+            // primero crece hasta MAX_SIZE, después se vacía
+            for(int step = 0; step < 4 * MAX_SIZE; step++) {
+                boolean growing = step < 2 * MAX_SIZE;
+                int operation = random.nextInt(4);
+                Integer occupied = model.ceilingKey(random.nextInt(range));
+                if(occupied == null && !model.isEmpty()) {
+                    occupied = model.firstKey();
+                }
+                int location;
+                int slot;
+                if(operation == 0 && occupied != null) {
+                    // cambiar la posición de un segmento ocupado
+                    location = occupied;
+                    slot = random.nextInt(1000);
+                }
+                else if(growing && model.size() < MAX_SIZE) {
+                    location = random.nextInt(range);
+                    slot = random.nextInt(1000);
+                }
+                else {
+                    // quitar un segmento ocupado o, a veces, uno que ya está vacío
+                    location = occupied != null && operation != 1 ? occupied : random.nextInt(range);
+                    slot = -1;
+                }
+                index.set(location, slot);
+                if(slot == -1) {
+                    model.remove(location);
+                }
+                else {
+                    model.put(location, slot);
+                }
+                int expected = model.containsKey(location) ? model.get(location) : -1;
+                if(index.get(location) != expected) {
+                    fail(name, "get(" + location + ") = " + index.get(location) + " en vez de " + expected);
+                }
+                int last = model.isEmpty() ? -1 : model.lastKey();
+                if(index.last() != last) {
+                    fail(name, "last() = " + index.last() + " en vez de " + last);
+                }
+                if(step % 500 == 0) {
+                    walk(name, index, model);
+                }
+            }
+            // vaciarlo, a mitad de las rondas con clear y si no de a uno
+            if(round == rounds / 2) {
+                index.clear();
+                model.clear();
+            }
+            while(!model.isEmpty()) {
+                int location = model.firstKey();
+                index.set(location, -1);
+                model.remove(location);
+            }
+            walk(name, index, model);
+        }
+    }
+
+    // Recorre el índice con next y lo compara con el modelo en orden
+    private static void walk(String name, SegmentIndex index, TreeMap<Integer, Integer> model)
+    {
+        int from = 0;
+        for(Map.Entry<Integer, Integer> entry : model.entrySet()) {
+            int found = index.next(from);
+            if(found != entry.getKey()) {
+                fail(name, "next(" + from + ") = " + found + " en vez de " + entry.getKey());
+                return;
+            }
+            if(index.get(found) != entry.getValue()) {
+                fail(name, "get(" + found + ") = " + index.get(found) + " en vez de " + entry.getValue());
+                return;
+            }
+            from = found + 1;
+        }
+        if(index.next(from) != -1) {
+            fail(name, "next(" + from + ") = " + index.next(from) + " después del último");
+        }
+    }
+
+    private static void fail(String name, String message)
+    {
+        if(failures++ < 10) {
+            System.err.println("Falla en " + name + ": " + message);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * SpatialGrid es un índice espacial de grilla uniforme: divide el plano en
+ * celdas cuadradas y recuerda qué elementos tocan cada celda. Permite
+ * encontrar los elementos cercanos a un área sin recorrer todos los demás,
+ * y solo guarda las celdas que tienen algún elemento.
+ *
+ * @author  SilkRoad
+ * @version 1.0
+ */
+public class SpatialGrid<T>
+{
+    private int cellSize;
+    private HashMap<Long, HashSet<T>> cells;
+
+    /**
+     * Crea una grilla vacía.
+     * @param  cellSize  el lado de cada celda, en las mismas unidades que
+     *                   los rectángulos que se indexen
+     */
+    public SpatialGrid(int cellSize)
+    {
+        if(cellSize <= 0) {
+            throw new IllegalArgumentException("El tamaño de celda debe ser mayor que 0");
+        }
+        this.cellSize = cellSize;
+        cells = new HashMap<Long, HashSet<T>>();
+    }
+
+    /**
+     * Agrega un elemento en todas las celdas que toca su rectángulo.
+     * @param  item    el elemento
+     * @param  bounds  el rectángulo que ocupa
+     */
+    public void insert(T item, java.awt.Rectangle bounds)
+    {
+        int firstX = cell(bounds.x);
+        int lastX = cell(bounds.x + bounds.width);
+        int firstY = cell(bounds.y);
+        int lastY = cell(bounds.y + bounds.height);
+        for(int cx = firstX; cx <= lastX; cx++) {
+            for(int cy = firstY; cy <= lastY; cy++) {
+                Long key = key(cx, cy);
+                HashSet<T> items = cells.get(key);
+                if(items == null) {
+                    items = new HashSet<T>();
+                    cells.put(key, items);
+                }
+                items.add(item);
+            }
+        }
+    }
+
+    /**
+     * Quita un elemento. El rectángulo debe ser el mismo con que se agregó.
+     * @param  item    el elemento
+     * @param  bounds  el rectángulo con que se agregó
+     */
+    public void remove(T item, java.awt.Rectangle bounds)
+    {
+        int firstX = cell(bounds.x);
+        int lastX = cell(bounds.x + bounds.width);
+        int firstY = cell(bounds.y);
+        int lastY = cell(bounds.y + bounds.height);
+        for(int cx = firstX; cx <= lastX; cx++) {
+            for(int cy = firstY; cy <= lastY; cy++) {
+                Long key = key(cx, cy);
+                HashSet<T> items = cells.get(key);
+                if(items != null) {
+                    items.remove(item);
+                    if(items.isEmpty()) {
+                        cells.remove(key);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Agrega a result los elementos de las celdas que toca el área. Puede
+     * incluir elementos cercanos que no tocan el área exactamente.
+     * @param  area    el área buscada
+     * @param  result  dónde se agregan los elementos encontrados
+     */
+    public void query(java.awt.Rectangle area, Set<T> result)
+    {
+        int firstX = cell(area.x);
+        int lastX = cell(area.x + area.width);
+        int firstY = cell(area.y);
+        int lastY = cell(area.y + area.height);
+        long visited = (long)(lastX - firstX + 1) * (lastY - firstY + 1);
+        if(visited > cells.size()) {
+            // área más grande que lo ocupado: más barato revisar las celdas existentes
+            for(java.util.Map.Entry<Long, HashSet<T>> entry : cells.entrySet()) {
+                int cx = (int)(entry.getKey() >> 32);
+                int cy = (int)(long)entry.getKey();
+                if(cx >= firstX && cx <= lastX && cy >= firstY && cy <= lastY) {
+                    result.addAll(entry.getValue());
+                }
+            }
+            return;
+        }
+        for(int cx = firstX; cx <= lastX; cx++) {
+            for(int cy = firstY; cy <= lastY; cy++) {
+                HashSet<T> items = cells.get(key(cx, cy));
+                if(items != null) {
+                    result.addAll(items);
+                }
+            }
+        }
+    }
+
+    private int cell(int coordinate)
+    {
+        return Math.floorDiv(coordinate, cellSize);
+    }
+
+    private static Long key(int cx, int cy)
+    {
+        return ((long)cx << 32) | (cy & 0xffffffffL);
+    }
+}
@@ -0,0 +1,81 @@
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.Shape;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+
+/**
+ * Sprite es un dibujo compuesto de varias figuras de color (por ejemplo un
+ * robot o una tienda) que el Canvas pinta como una sola imagen. Las figuras
+ * se dan en coordenadas relativas al origen de la entidad; la imagen se
+ * rasteriza una sola vez, la primera vez que el Canvas la necesita, así en
+ * modo sin pantalla nunca se crea.
+ *
+ * @author  SilkRoad
+ * @version 1.0
+ */
+public class Sprite
+{
+    private ArrayList<Shape> shapes;
+    private ArrayList<Palette> colors;
+    private java.awt.Rectangle bounds;
+    private BufferedImage image;
+
+    /**
+     * Crea un sprite vacío.
+     */
+    public Sprite()
+    {
+        shapes = new ArrayList<Shape>();
+        colors = new ArrayList<Palette>();
+    }
+
+    /**
+     * Agrega una figura encima de las anteriores.
+     * @param  color  el color de la figura
+     * @param  shape  la figura, relativa al origen de la entidad
+     * @return este mismo sprite, para encadenar llamadas
+     */
+    public Sprite add(Palette color, Shape shape)
+    {
+        shapes.add(shape);
+        colors.add(color);
+        if(bounds == null) {
+            bounds = shape.getBounds();
+        }
+        else {
+            bounds.add(shape.getBounds());
+        }
+        return this;
+    }
+
+    /**
+     * @return el rectángulo que cubre todas las figuras, relativo al origen
+     */
+    public java.awt.Rectangle getBounds()
+    {
+        return new java.awt.Rectangle(bounds);
+    }
+
+    /**
+     * Devuelve la imagen del sprite, rasterizándola la primera vez.
+     * @return la imagen; su esquina superior izquierda corresponde a
+     *         getBounds().x, getBounds().y
+     */
+    public synchronized BufferedImage getImage()
+    {
+        if(image == null) {
+            image = new BufferedImage(bounds.width, bounds.height, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D graphic = image.createGraphics();
+            graphic.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+                                     RenderingHints.VALUE_ANTIALIAS_OFF);
+            graphic.translate(-bounds.x, -bounds.y);
+            for(int i = 0; i < shapes.size(); i++) {
+                graphic.setColor(colors.get(i).getColor());
+                graphic.fill(shapes.get(i));
+            }
+            graphic.dispose();
+        }
+        return image;
+    }
+}
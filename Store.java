@@ -1,9 +1,12 @@
+import java.awt.Polygon;
+import java.util.HashMap;
+
 public class Store {
-    private Rectangle base;
-    private Triangle roof;
-    private Rectangle door; // Nueva puerta para tiendas vacías
     private boolean isVisible;
+    private Renderer renderer;
     private String wallColor; // color de las paredes
+    private String roofColor; // color del techo
+    private int x, y;         // posición de la base
     
     // Tamaños
     private int baseSize = 25;
@@ -18,53 +21,71 @@ public class Store {
     // Contador estático para asignar colores secuencialmente
     private static int colorIndex = 0;
     
-    // Monedas
-    private int coins;
-    private int initialCoins;
+    // Sprites ya construidos por combinación de paredes, techo y puerta
+    private static final HashMap<String, Sprite> SPRITES = new HashMap<>();
     
-    // Contador de veces que ha sido vaciada (PRIVADO - solo accesible desde SilkRoad)
-    private int timesEmptied;
+    // Monedas y veces vaciada: viven en una fila de la tabla de tiendas
+    // (la de SilkRoad, o una propia si la tienda se creó suelta)
+    private StoreTable table;
+    private int slot;
     
     public Store(int x, int y, int coins) {
-        this.coins = coins;
-        this.initialCoins = coins;
-        this.timesEmptied = 0; // Inicializar contador
+        this(x, y, coins, Renderer.CANVAS);
+    }
+    
+    /**
+     * Crea una tienda que se dibuja en el renderer dado
+     */
+    public Store(int x, int y, int coins, Renderer renderer) {
+        this(x, y, singleRow(coins), 0, renderer);
+    }
+    
+    /**
+     * Crea la tienda que dibuja la fila slot de la tabla de SilkRoad
+     */
+    Store(int x, int y, StoreTable table, int slot, Renderer renderer) {
+        this.renderer = renderer;
+        this.x = x;
+        this.y = y;
+        this.table = table;
+        this.slot = slot;
         
-        // Asignar color automáticamente para las paredes
+        // Asignar color automáticamente para las paredes; el techo SIEMPRE del mismo color
         this.wallColor = getNextWallColor();
-        
-        // Crear base con color diferente
-        base = new Rectangle();
-        base.changeSize(baseSize, baseSize);
-        base.changeColor(wallColor); // Usar color asignado automáticamente
-        base.moveHorizontal(x);
-        base.moveVertical(y);
-        
-        // Crear techo (SIEMPRE del mismo color)
-        roof = new Triangle();
-        roof.changeSize(roofHeight, roofWidth);
-        roof.changeColor("techo");
-        roof.moveHorizontal(x + (baseSize / 2));
-        roof.moveVertical(y - roofHeight);
-        
-        // Crear puerta (inicialmente invisible)
-        door = new Rectangle();
-        door.changeSize(doorHeight, doorWidth);
-        door.changeColor("black"); // Puerta negra para simular que está cerrada
-        // Centrar horizontalmente y posicionar desde el centro hacia abajo
-        int doorX = x + (baseSize / 2) - (doorWidth / 2);
-        int doorY = y + (baseSize / 2); // Desde el centro hacia abajo
-        door.moveHorizontal(doorX);
-        door.moveVertical(doorY);
+        this.roofColor = "techo";
         
         isVisible = false;
 
     }
     
+    private static StoreTable singleRow(int coins) {
+        StoreTable table = new HeapStoreTable();
+        table.add(-1, coins);
+        return table;
+    }
+    
+    /**
+     * Cambia la fila de la tabla que lee esta tienda (SilkRoad la mueve al
+     * llenar el hueco de una tienda quitada)
+     */
+    void setSlot(int slot) {
+        this.slot = slot;
+    }
+    
+    /**
+     * Copia su fila a una tabla propia; se usa al quitar la tienda de
+     * SilkRoad, antes de que otra tienda ocupe su fila
+     */
+    void detach() {
+        StoreTable own = new HeapStoreTable();
+        slot = own.addCopy(table, slot);
+        table = own;
+    }
+    
     /**
      * Obtiene el siguiente color disponible de forma cíclica para las paredes
      */
-    private static String getNextWallColor() {
+    private static synchronized String getNextWallColor() {
         String selectedColor = WALL_COLORS[colorIndex];
         colorIndex = (colorIndex + 1) % WALL_COLORS.length;
         return selectedColor;
@@ -73,90 +94,108 @@ public class Store {
     /**
      * Reinicia el contador de colores (útil al reiniciar el juego)
      */
-    public static void resetColorIndex() {
+    public static synchronized void resetColorIndex() {
         colorIndex = 0;
     }
     
+    /**
+     * Obtiene el sprite de esta tienda (paredes, techo y, si está vacía, la
+     * puerta), construyéndolo solo la primera vez que se pide esa combinación
+     */
+    private Sprite getSprite() {
+        boolean doorVisible = (table.getCoins(slot) == 0); // Puerta solo si la tienda está vacía
+        String key = wallColor + "/" + roofColor + "/" + doorVisible;
+        synchronized (SPRITES) {
+            Sprite sprite = SPRITES.get(key);
+            if (sprite == null) {
+                sprite = new Sprite();
+                // Base
+                sprite.add(Palette.of(wallColor), new java.awt.Rectangle(0, 0, baseSize, baseSize));
+                // Techo
+                int apexX = baseSize / 2;
+                int[] xpoints = { apexX, apexX + (roofWidth / 2), apexX - (roofWidth / 2) };
+                int[] ypoints = { -roofHeight, 0, 0 };
+                sprite.add(Palette.of(roofColor), new Polygon(xpoints, ypoints, 3));
+                // Puerta negra centrada, desde el centro hacia abajo
+                if (doorVisible) {
+                    sprite.add(Palette.BLACK, new java.awt.Rectangle((baseSize / 2) - (doorWidth / 2),
+                                                                     baseSize / 2, doorWidth, doorHeight));
+                }
+                SPRITES.put(key, sprite);
+            }
+            return sprite;
+        }
+    }
+    
     public void makeVisible() {
         isVisible = true;
-        base.makeVisible();
-        roof.makeVisible();
-        
-        // Mostrar puerta solo si la tienda está vacía
-        if (coins == 0) {
-            door.makeVisible();
-        }
+        draw();
     }
     
     public void makeInvisible() {
-        base.makeInvisible();
-        roof.makeInvisible();
-        door.makeInvisible(); // Ocultar puerta también
+        if (isVisible) {
+            renderer.erase(this);
+        }
         isVisible = false;
     }
     
+    private void draw() {
+        if (isVisible && !renderer.isHeadless()) {
+            renderer.drawSprite(this, Layer.STORES, getSprite(), x, y);
+        }
+    }
+    
     public void moveHorizontal(int distance) {
-        base.moveHorizontal(distance);
-        roof.moveHorizontal(distance);
-        door.moveHorizontal(distance); // Mover puerta también
+        x += distance;
+        draw();
     }
     
     public void moveVertical(int distance) {
-        base.moveVertical(distance);
-        roof.moveVertical(distance);
-        door.moveVertical(distance); // Mover puerta también
+        y += distance;
+        draw();
     }
     
     public void changeColors(String baseColor, String roofColor) {
-        base.changeColor(baseColor);
-        roof.changeColor(roofColor);
+        this.wallColor = baseColor;
+        this.roofColor = roofColor;
+        draw();
     }
     
     // --- Métodos de monedas ---
     public int getCoins() {
-        return coins;
+        return table.getCoins(slot);
     }
     
     public void setCoins(int value) {
-        boolean wasEmpty = (coins == 0);
+        boolean wasEmpty = (table.getCoins(slot) == 0);
         boolean willBeEmpty = (value == 0);
         
-        coins = value;
-        
-        // CONTADOR AUTOMÁTICO: Si la tienda se vacía, incrementar contador
-        if (!wasEmpty && willBeEmpty) {
-            timesEmptied++;
-        }
+        // CONTADOR AUTOMÁTICO: la tabla cuenta una vaciada más si la tienda se vacía
+        table.setCoins(slot, value);
         
         // NUEVO: Actualizar visualización de la puerta según el estado
-        if (isVisible) {
-            if (coins == 0) {
-                door.makeVisible(); // Mostrar puerta si está vacía
-            } else {
-                door.makeInvisible(); // Ocultar puerta si tiene monedas
-            }
+        if (wasEmpty != willBeEmpty) {
+            draw(); // Mostrar puerta si está vacía, ocultarla si tiene monedas
         }
     }
     
     public void restock() {
-        coins = initialCoins;
+        table.restock(slot);
         // NO resetear timesEmptied - mantener historial
         
         // NUEVO: Actualizar visualización de la puerta al reabastecer
-        if (isVisible) {
-            door.makeInvisible(); // Ocultar puerta cuando se reabastece
-        }
+        draw(); // Ocultar puerta cuando se reabastece
     }
     
     public int getInitialCoins() {
-        return initialCoins;
+        return table.getInitialCoins(slot);
     }
     
     /*
      * Obtiene el número de veces que esta tienda ha sido completamente vaciada
      */
     public int getTimesEmptied() {
-        return timesEmptied;
+        return table.getTimesEmptied(slot);
     }
     
     /**
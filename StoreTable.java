@@ -0,0 +1,72 @@
+/**
+ * StoreTable guarda los datos de simulación de las tiendas (ubicación,
+ * monedas, monedas iniciales y veces vaciada), una fila por tienda. Los
+ * objetos Store solo dibujan y leen su fila de la tabla.
+ *
+ * Al quitar una fila, la última ocupa su lugar (igual que en las listas de
+ * SilkRoad), así todas las operaciones cuestan O(1).
+ *
+ * Hay dos implementaciones: HeapStoreTable guarda una columna de enteros
+ * por dato en el heap; OffHeapStoreTable guarda un registro por tienda
+ * fuera del heap.
+ *
+ * @author  SilkRoad
+ * @version 1.0
+ */
+public interface StoreTable
+{
+    /**
+     * Agrega una tienda llena, sin vaciar nunca.
+     * @param  location  su ubicación
+     * @param  tenges    sus monedas iniciales
+     * @return la fila de la tienda
+     */
+    int add(int location, int tenges);
+
+    /**
+     * Agrega una copia de una fila de otra tabla.
+     * @param  source  la otra tabla
+     * @param  slot    la fila a copiar
+     * @return la fila nueva
+     */
+    int addCopy(StoreTable source, int slot);
+
+    /**
+     * Quita una fila; la última fila pasa a ocupar su lugar.
+     * @param  slot  la fila
+     */
+    void remove(int slot);
+
+    /**
+     * Quita todas las filas.
+     */
+    void clear();
+
+    /**
+     * @return cuántas tiendas hay
+     */
+    int size();
+
+    int getLocation(int slot);
+
+    int getCoins(int slot);
+
+    /**
+     * Cambia las monedas de una tienda; si con esto queda vacía, cuenta
+     * una vez más como vaciada.
+     * @param  slot   la fila
+     * @param  value  las monedas nuevas
+     */
+    void setCoins(int slot, int value);
+
+    /**
+     * Devuelve una tienda a sus monedas iniciales, sin olvidar las veces
+     * que fue vaciada.
+     * @param  slot  la fila
+     */
+    void restock(int slot);
+
+    int getInitialCoins(int slot);
+
+    int getTimesEmptied(int slot);
+}
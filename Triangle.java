@@ -15,18 +15,31 @@ public class Triangle{
     private int width;
     private int xPosition;
     private int yPosition;
-    private String color;
+    private Palette color;
     private boolean isVisible;
+    private Renderer renderer;
+    private Layer layer;
 
     /**
      * Create a new triangle at default position with default color.
      */
     public Triangle(){
+        this(Renderer.CANVAS);
+    }
+
+    /**
+     * Create a new triangle at default position with default color
+     * that draws itself on the given renderer.
+     * @param renderer where the triangle is drawn
+     */
+    public Triangle(Renderer renderer){
+        this.renderer = renderer;
+        layer = Layer.SHAPES;
         height = 30;
         width = 40;
         xPosition = 0;
         yPosition = 0;
-        color = "green";
+        color = Palette.GREEN;
         isVisible = false;
     }
 
@@ -111,6 +124,9 @@ public class Triangle{
         for(int i = 0; i < distance; i++){
             xPosition += delta;
             draw();
+            if(isVisible) {
+                renderer.wait(10);
+            }
         }
     }
 
@@ -131,6 +147,9 @@ public class Triangle{
         for(int i = 0; i < distance; i++){
             yPosition += delta;
             draw();
+            if(isVisible) {
+                renderer.wait(10);
+            }
         }
     }
 
@@ -146,13 +165,24 @@ public class Triangle{
         draw();
     }
     
+    /**
+     * Change the drawing layer. Shapes in later layers are always drawn
+     * on top of shapes in earlier layers.
+     * @param newLayer the new layer
+     */
+    public void setLayer(Layer newLayer){
+        erase();
+        layer = newLayer;
+        draw();
+    }
+
     /**
      * Change the color. 
      * @param color the new color. Valid colors are "red", "yellow", "blue", "green",
      * "magenta" and "black".
      */
     public void changeColor(String newColor){
-        color = newColor;
+        color = Palette.of(newColor);
         draw();
     }
 
@@ -160,12 +190,10 @@ public class Triangle{
      * Draw the triangle with current specifications on screen.
      */
     private void draw(){
-        if(isVisible) {
-            Canvas canvas = Canvas.getCanvas();
+        if(isVisible && !renderer.isHeadless()) {
             int[] xpoints = { xPosition, xPosition + (width/2), xPosition - (width/2) };
             int[] ypoints = { yPosition, yPosition + height, yPosition + height };
-            canvas.draw(this, color, new Polygon(xpoints, ypoints, 3));
-            canvas.wait(10);
+            renderer.draw(this, layer, color, new Polygon(xpoints, ypoints, 3));
         }
     }
 
@@ -174,8 +202,7 @@ public class Triangle{
      */
     private void erase(){
         if(isVisible) {
-            Canvas canvas = Canvas.getCanvas();
-            canvas.erase(this);
+            renderer.erase(this);
         }
     }
 }